@@ -0,0 +1,50 @@
+package co.edu.eci.blueprints.bench;
+
+import co.edu.eci.blueprints.model.Blueprint;
+import co.edu.eci.blueprints.model.Point;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic datasets shared by the benchmarks.
+ */
+final class BenchmarkData {
+
+    /**
+     * Number of blueprints per author in generated datasets.
+     */
+    static final int BLUEPRINTS_PER_AUTHOR = 10;
+
+    private BenchmarkData() {}
+
+    /**
+     * Generates points on a random walk, with runs of repeated points so the redundancy filter has work to do.
+     * @param count Number of points
+     * @param seed Random seed
+     * @return Generated points
+     */
+    static List<Point> points(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Point> points = new ArrayList<>(count);
+        int x = 0;
+        int y = 0;
+        for (int i = 0; i < count; i++) {
+            if (random.nextInt(4) != 0) {
+                x += random.nextInt(-5, 6);
+                y += random.nextInt(-5, 6);
+            }
+            points.add(new Point(x, y));
+        }
+        return points;
+    }
+
+    static String author(int blueprint) { return "author" + blueprint / BLUEPRINTS_PER_AUTHOR; }
+
+    static String name(int blueprint) { return "bp" + blueprint; }
+
+    static Blueprint blueprint(int blueprint, int pointCount) {
+        return new Blueprint(author(blueprint), name(blueprint), points(pointCount, blueprint));
+    }
+}
@@ -0,0 +1,61 @@
+package co.edu.eci.blueprints.bench;
+
+import co.edu.eci.blueprints.filters.RedundancyFilter;
+import co.edu.eci.blueprints.filters.UndersamplingFilter;
+import co.edu.eci.blueprints.model.Blueprint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filter application on a single blueprint of increasing size.
+ * {@code parallelism} is the number of fork-join workers; with 1 the filters run sequentially,
+ * otherwise every size is filtered in parallel. Speedup is bounded by the cores available to the JVM.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FilterBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int points;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private Blueprint blueprint;
+    private RedundancyFilter redundancy;
+    private UndersamplingFilter undersampling;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        blueprint = BenchmarkData.blueprint(0, points);
+        redundancy = new RedundancyFilter(parallelism, 1);
+        undersampling = new UndersamplingFilter(parallelism, 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        redundancy.close();
+        undersampling.close();
+    }
+
+    @Benchmark
+    public Blueprint redundancy() {
+        return redundancy.apply(blueprint);
+    }
+
+    @Benchmark
+    public Blueprint undersampling() {
+        return undersampling.apply(blueprint);
+    }
+}
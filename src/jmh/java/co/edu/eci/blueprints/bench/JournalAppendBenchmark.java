@@ -0,0 +1,60 @@
+package co.edu.eci.blueprints.bench;
+
+import co.edu.eci.blueprints.persistence.BlueprintJournal;
+import co.edu.eci.blueprints.persistence.BlueprintJournal.FsyncPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Acknowledged point appends per second on the journal for each fsync policy.
+ * Run with several threads ({@code -Djmh.threads=8}) to see group commit amortize the fsync.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JournalAppendBenchmark {
+
+    @Param({"ALWAYS", "INTERVAL", "NEVER"})
+    public FsyncPolicy fsync;
+
+    private Path dir;
+    private BlueprintJournal journal;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("journal-bench");
+        journal = new BlueprintJournal(dir, 0, fsync, 50, 256L << 20);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(p);
+        }
+    }
+
+    @Benchmark
+    public long appendPoint() throws IOException {
+        int i = ThreadLocalRandom.current().nextInt(1000);
+        long seq = journal.appendPoint(BenchmarkData.author(i), BenchmarkData.name(i), i, -i);
+        journal.sync(seq);
+        return seq;
+    }
+}
@@ -0,0 +1,47 @@
+package co.edu.eci.blueprints.bench;
+
+import co.edu.eci.blueprints.dto.BlueprintDTO;
+import co.edu.eci.blueprints.dto.BlueprintMapper;
+import co.edu.eci.blueprints.model.Blueprint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping and back for blueprints of increasing size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MapperBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int points;
+
+    private Blueprint blueprint;
+    private BlueprintDTO dto;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        blueprint = BenchmarkData.blueprint(0, points);
+        dto = BlueprintMapper.toDTO(blueprint);
+    }
+
+    @Benchmark
+    public BlueprintDTO toDTO() {
+        return BlueprintMapper.toDTO(blueprint);
+    }
+
+    @Benchmark
+    public Blueprint toEntity() {
+        return BlueprintMapper.toEntity(dto);
+    }
+}
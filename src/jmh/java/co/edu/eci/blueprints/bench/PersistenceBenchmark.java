@@ -0,0 +1,89 @@
+package co.edu.eci.blueprints.bench;
+
+import co.edu.eci.blueprints.model.Blueprint;
+import co.edu.eci.blueprints.model.BlueprintSummary;
+import co.edu.eci.blueprints.persistence.BlueprintNotFoundException;
+import co.edu.eci.blueprints.persistence.BlueprintPersistence;
+import co.edu.eci.blueprints.persistence.BlueprintPersistenceException;
+import co.edu.eci.blueprints.persistence.InMemoryBlueprintPersistence;
+import co.edu.eci.blueprints.persistence.OffHeapBlueprintPersistence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups by key and by author, full scans and point appends on the in-memory stores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PersistenceBenchmark {
+
+    @Param({"heap", "offheap"})
+    public String store;
+
+    @Param({"100", "10000"})
+    public int blueprints;
+
+    @Param({"10", "1000"})
+    public int pointsPerBlueprint;
+
+    private BlueprintPersistence persistence;
+
+    @Setup(Level.Trial)
+    public void setUp() throws BlueprintPersistenceException {
+        persistence = switch (store) {
+            case "heap" -> new InMemoryBlueprintPersistence();
+            case "offheap" -> new OffHeapBlueprintPersistence();
+            default -> throw new IllegalArgumentException(store);
+        };
+        for (int i = 0; i < blueprints; i++) {
+            persistence.saveBlueprint(BenchmarkData.blueprint(i, pointsPerBlueprint));
+        }
+    }
+
+    private int randomBlueprint() { return ThreadLocalRandom.current().nextInt(blueprints); }
+
+    @Benchmark
+    public Blueprint getBlueprint() throws BlueprintNotFoundException {
+        int i = randomBlueprint();
+        return persistence.getBlueprint(BenchmarkData.author(i), BenchmarkData.name(i));
+    }
+
+    @Benchmark
+    public BlueprintSummary getBlueprintSummary() throws BlueprintNotFoundException {
+        int i = randomBlueprint();
+        return persistence.getBlueprintSummary(BenchmarkData.author(i), BenchmarkData.name(i));
+    }
+
+    @Benchmark
+    public Set<Blueprint> getBlueprintsByAuthor() throws BlueprintNotFoundException {
+        return persistence.getBlueprintsByAuthor(BenchmarkData.author(randomBlueprint()));
+    }
+
+    @Benchmark
+    public Set<Blueprint> getAllBlueprints() {
+        return persistence.getAllBlueprints();
+    }
+
+    @Benchmark
+    public Set<BlueprintSummary> getAllBlueprintSummaries() {
+        return persistence.getAllBlueprintSummaries();
+    }
+
+    @Benchmark
+    public void addPoint() throws BlueprintNotFoundException, BlueprintPersistenceException {
+        int i = randomBlueprint();
+        persistence.addPoint(BenchmarkData.author(i), BenchmarkData.name(i), i, -i);
+    }
+}
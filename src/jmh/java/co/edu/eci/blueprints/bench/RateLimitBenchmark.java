@@ -0,0 +1,45 @@
+package co.edu.eci.blueprints.bench;
+
+import co.edu.eci.blueprints.throttling.TokenBuckets;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a rate-limit decision: one token taken from the bucket of a principal among a given number of them.
+ * With a single principal every thread contends on the same bucket; run with {@code -Djmh.threads=8} to see it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RateLimitBenchmark {
+
+    @Param({"1", "1000", "100000"})
+    public int principals;
+
+    private TokenBuckets buckets;
+    private String[] names;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // A rate no benchmark reaches, so every call takes the admitting path and updates the bucket
+        buckets = new TokenBuckets(1e9, 1_000_000, principals);
+        names = new String[principals];
+        for (int i = 0; i < principals; i++) names[i] = "principal" + i;
+    }
+
+    @Benchmark
+    public long tryAcquire() {
+        String name = names[ThreadLocalRandom.current().nextInt(principals)];
+        return buckets.tryAcquire(name, System.nanoTime());
+    }
+}
@@ -0,0 +1,72 @@
+package co.edu.eci.blueprints.bench;
+
+import co.edu.eci.blueprints.dto.BlueprintMapper;
+import co.edu.eci.blueprints.dto.BlueprintDTO;
+import co.edu.eci.blueprints.model.Blueprint;
+import co.edu.eci.blueprints.persistence.BlueprintNotFoundException;
+import co.edu.eci.blueprints.persistence.BlueprintPersistence;
+import co.edu.eci.blueprints.persistence.BlueprintPersistenceException;
+import co.edu.eci.blueprints.persistence.InMemoryBlueprintPersistence;
+import co.edu.eci.blueprints.persistence.OffHeapBlueprintPersistence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request-like reads (lookup and DTO mapping of a small blueprint) while a large dataset is resident,
+ * comparing the heap store with the off-heap store. Run with {@code -Djmh.extraArgs="-prof gc"} to compare
+ * GC time and allocation next to the throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-XX:MaxDirectMemorySize=4g"})
+public class ResidentDatasetBenchmark {
+
+    private static final int SMALL_BLUEPRINT_POINTS = 50;
+
+    @Param({"heap", "offheap"})
+    public String store;
+
+    /**
+     * Points kept resident, spread over blueprints of 100 000 points each.
+     */
+    @Param({"10000000", "50000000"})
+    public int residentPoints;
+
+    private BlueprintPersistence persistence;
+    private int smallBlueprints;
+
+    @Setup(Level.Trial)
+    public void setUp() throws BlueprintPersistenceException {
+        persistence = switch (store) {
+            case "heap" -> new InMemoryBlueprintPersistence();
+            case "offheap" -> new OffHeapBlueprintPersistence();
+            default -> throw new IllegalArgumentException(store);
+        };
+        int large = residentPoints / 100_000;
+        for (int i = 0; i < large; i++) {
+            persistence.saveBlueprint(new Blueprint("resident", "large" + i, BenchmarkData.points(100_000, i)));
+        }
+        smallBlueprints = 1000;
+        for (int i = 0; i < smallBlueprints; i++) {
+            persistence.saveBlueprint(BenchmarkData.blueprint(i, SMALL_BLUEPRINT_POINTS));
+        }
+    }
+
+    @Benchmark
+    public BlueprintDTO readAndMap() throws BlueprintNotFoundException {
+        int i = ThreadLocalRandom.current().nextInt(smallBlueprints);
+        return BlueprintMapper.toDTO(persistence.getBlueprint(BenchmarkData.author(i), BenchmarkData.name(i)));
+    }
+}
@@ -0,0 +1,68 @@
+package co.edu.eci.blueprints.bench;
+
+import co.edu.eci.blueprints.model.Blueprint;
+import co.edu.eci.blueprints.model.BlueprintSummary;
+import co.edu.eci.blueprints.persistence.BlueprintNotFoundException;
+import co.edu.eci.blueprints.persistence.BlueprintPersistenceException;
+import co.edu.eci.blueprints.persistence.InMemoryBlueprintPersistence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the in-memory store with one shard, every blueprint behind one lock, against many shards:
+ * a mix of nine reads to one point append, and full listings. Run once per thread count to see how it scales,
+ * for example {@code -Djmh.threads=64}. The store is rebuilt every iteration so the appends do not pile up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ShardedStoreBenchmark {
+
+    @Param({"1", "64"})
+    public int shards;
+
+    @Param({"10000", "100000"})
+    public int blueprints;
+
+    private InMemoryBlueprintPersistence persistence;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws BlueprintPersistenceException {
+        persistence = new InMemoryBlueprintPersistence(false, shards);
+        for (int i = 0; i < blueprints; i++) {
+            persistence.saveBlueprint(BenchmarkData.blueprint(i, 10));
+        }
+    }
+
+    @Benchmark
+    public Object mixedReadsAndAppends() throws BlueprintNotFoundException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int i = random.nextInt(blueprints);
+        if (random.nextInt(10) == 0) {
+            persistence.addPoint(BenchmarkData.author(i), BenchmarkData.name(i), i, -i);
+            return null;
+        }
+        return persistence.getBlueprint(BenchmarkData.author(i), BenchmarkData.name(i));
+    }
+
+    @Benchmark
+    public Set<Blueprint> getAllBlueprints() {
+        return persistence.getAllBlueprints();
+    }
+
+    @Benchmark
+    public Set<BlueprintSummary> getAllBlueprintSummaries() {
+        return persistence.getAllBlueprintSummaries();
+    }
+}
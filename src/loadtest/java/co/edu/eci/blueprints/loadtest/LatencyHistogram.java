@@ -0,0 +1,65 @@
+package co.edu.eci.blueprints.loadtest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with log-linear buckets (about 1.5% relative error).
+ * Values below 128 are recorded exactly; larger values share a bucket with the values that have the
+ * same 7 most significant bits. Recording is a single atomic increment, so many threads can record at once.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 64;
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(LINEAR_LIMIT + 57 * SUB_BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one value.
+     * @param value Value to record, negative values are recorded as 0
+     */
+    void record(long value) {
+        long v = Math.max(0, value);
+        counts.incrementAndGet(indexOf(v));
+        total.incrementAndGet();
+        max.accumulateAndGet(v, Math::max);
+    }
+
+    long count() { return total.get(); }
+
+    long max() { return max.get(); }
+
+    /**
+     * Gets the value at the given percentile.
+     * @param percentile Percentile between 0 and 100
+     * @return Highest value of the bucket holding the percentile, or 0 when empty
+     */
+    long percentile(double percentile) {
+        long n = total.get();
+        if (n == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= target) return Math.min(highestValueOf(i), max.get());
+        }
+        return max.get();
+    }
+
+    private static int indexOf(long v) {
+        if (v < LINEAR_LIMIT) return (int) v;
+        int shift = 57 - Long.numberOfLeadingZeros(v);
+        int mantissa = (int) (v >>> shift);
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + (mantissa - SUB_BUCKETS);
+    }
+
+    private static long highestValueOf(int index) {
+        if (index < LINEAR_LIMIT) return index;
+        int shift = (index - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        long mantissa = (index - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
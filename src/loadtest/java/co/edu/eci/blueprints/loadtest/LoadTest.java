@@ -0,0 +1,310 @@
+package co.edu.eci.blueprints.loadtest;
+
+import co.edu.eci.blueprints.BlueprintsApiApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end HTTP load test for the blueprints API.
+ * Logs in through {@code /auth/login}, seeds blueprints, then drives a weighted mix of requests from virtual threads
+ * and reports throughput, error rate and p50/p99/p99.9 latency per endpoint.
+ * <p>
+ * Without {@code loadtest.base-url} the API is started in this JVM with the "memory" profile on a random port,
+ * so the test needs no database. With {@code loadtest.rate} the load is open-loop: requests are scheduled at a fixed
+ * rate and latency is measured from the scheduled time, so a stalled server is not hidden by clients that wait.
+ * <p>
+ * Settings are read from system properties, see {@link Settings}.
+ */
+public final class LoadTest {
+
+    /**
+     * Endpoints exercised by the load test.
+     */
+    enum Endpoint { GET_ALL, BY_AUTHOR, BY_AUTHOR_AND_NAME, POST, PUT_POINT }
+
+    /**
+     * Load test settings.
+     *
+     * @param baseUrl Base URL of a running API, or empty to start one in-process
+     * @param users Number of concurrent virtual users
+     * @param rate Total requests per second for open-loop load, or 0 for closed-loop
+     * @param warmupSeconds Duration of the warm-up, not included in the results
+     * @param durationSeconds Duration of the measured run
+     * @param authors Number of authors seeded before the run
+     * @param blueprintsPerAuthor Number of blueprints seeded per author
+     * @param pointsPerBlueprint Number of points per seeded or posted blueprint
+     * @param mix Relative weight of each endpoint
+     * @param username User for the login
+     * @param password Password for the login
+     * @param resultFile File where the results are written as JSON
+     */
+    record Settings(String baseUrl, int users, int rate, int warmupSeconds, int durationSeconds, int authors,
+                    int blueprintsPerAuthor, int pointsPerBlueprint, Map<Endpoint, Integer> mix,
+                    String username, String password, Path resultFile) {
+
+        static Settings fromSystemProperties() {
+            Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+            for (String part : System.getProperty("loadtest.mix",
+                    "GET_ALL=5,BY_AUTHOR=25,BY_AUTHOR_AND_NAME=50,POST=10,PUT_POINT=10").split(",")) {
+                String[] kv = part.trim().split("=");
+                mix.put(Endpoint.valueOf(kv[0].trim()), Integer.parseInt(kv[1].trim()));
+            }
+            return new Settings(
+                    System.getProperty("loadtest.base-url", ""),
+                    Integer.getInteger("loadtest.users", 64),
+                    Integer.getInteger("loadtest.rate", 0),
+                    Integer.getInteger("loadtest.warmup-seconds", 10),
+                    Integer.getInteger("loadtest.duration-seconds", 30),
+                    Integer.getInteger("loadtest.authors", 50),
+                    Integer.getInteger("loadtest.blueprints-per-author", 10),
+                    Integer.getInteger("loadtest.points-per-blueprint", 20),
+                    mix,
+                    System.getProperty("loadtest.username", "student"),
+                    System.getProperty("loadtest.password", "student123"),
+                    Path.of(System.getProperty("loadtest.result-file", "target/loadtest-result.json")));
+        }
+    }
+
+    /**
+     * Counters of one endpoint for one phase of the run.
+     */
+    static final class EndpointStats {
+        final LatencyHistogram latencyMicros = new LatencyHistogram();
+        final AtomicLong errors = new AtomicLong();
+        final Map<Integer, AtomicLong> statuses = new ConcurrentHashMap<>();
+
+        void record(int status, long latencyNanos) {
+            latencyMicros.record(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+            statuses.computeIfAbsent(status, s -> new AtomicLong()).incrementAndGet();
+            if (status < 200 || status >= 300) errors.incrementAndGet();
+        }
+    }
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Settings settings;
+    private final HttpClient client;
+    private final AtomicLong postedBlueprints = new AtomicLong();
+    private String baseUrl;
+    private String token;
+
+    LoadTest(Settings settings) {
+        this.settings = settings;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Settings settings = Settings.fromSystemProperties();
+        ConfigurableApplicationContext app = null;
+        try {
+            String baseUrl = settings.baseUrl();
+            if (baseUrl.isBlank()) {
+                app = startInProcess();
+                baseUrl = "http://localhost:" + ((WebServerApplicationContext) app).getWebServer().getPort();
+            }
+            new LoadTest(settings).run(baseUrl);
+        } finally {
+            if (app != null) app.close();
+        }
+    }
+
+    private static ConfigurableApplicationContext startInProcess() {
+        SpringApplication application = new SpringApplication(BlueprintsApiApplication.class);
+        application.setAdditionalProfiles("memory");
+        // Every virtual user shares one token, so the per-principal rate limit would measure itself
+        return application.run("--server.port=0", "--logging.level.root=WARN", "--blueprints.rate-limit.enabled=false");
+    }
+
+    void run(String baseUrl) throws Exception {
+        this.baseUrl = baseUrl;
+        this.token = login();
+        seed();
+        System.out.printf("Target %s, %d users, %s, warm-up %ds, run %ds%n", baseUrl, settings.users(),
+                settings.rate() > 0 ? settings.rate() + " req/s open-loop" : "closed-loop",
+                settings.warmupSeconds(), settings.durationSeconds());
+
+        drive(settings.warmupSeconds(), new EnumMap<>(Endpoint.class));
+        Map<Endpoint, EndpointStats> results = new EnumMap<>(Endpoint.class);
+        for (Endpoint e : Endpoint.values()) results.put(e, new EndpointStats());
+        long start = System.nanoTime();
+        drive(settings.durationSeconds(), results);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        report(results, seconds);
+    }
+
+    private String login() throws IOException, InterruptedException {
+        String body = MAPPER.writeValueAsString(Map.of("username", settings.username(), "password", settings.password()));
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login failed with status " + response.statusCode() + ": " + response.body());
+        }
+        return MAPPER.readTree(response.body()).path("data").path("access_token").asText();
+    }
+
+    private void seed() throws IOException, InterruptedException {
+        for (int a = 0; a < settings.authors(); a++) {
+            for (int b = 0; b < settings.blueprintsPerAuthor(); b++) {
+                int status = send(post(author(a), "bp" + b));
+                if (status != 201 && status != 400) {
+                    throw new IllegalStateException("Seeding failed with status " + status);
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the virtual users for the given time, recording into {@code results} (nothing is recorded for endpoints
+     * missing from the map).
+     */
+    private void drive(int seconds, Map<Endpoint, EndpointStats> results) throws InterruptedException {
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long intervalNanos = settings.rate() > 0 ? TimeUnit.SECONDS.toNanos(settings.users()) / settings.rate() : 0;
+        try (ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int u = 0; u < settings.users(); u++) {
+                long offset = intervalNanos * u / settings.users();
+                users.submit(() -> user(end, intervalNanos, offset, results));
+            }
+        }
+    }
+
+    private Void user(long end, long intervalNanos, long offset, Map<Endpoint, EndpointStats> results) {
+        long scheduled = System.nanoTime() + offset;
+        while (scheduled < end) {
+            if (intervalNanos > 0) {
+                long wait = scheduled - System.nanoTime();
+                if (wait > 0) LockSupport.parkNanos(wait);
+            } else {
+                scheduled = System.nanoTime();
+            }
+            Endpoint endpoint = pick();
+            int status;
+            try {
+                status = send(request(endpoint));
+            } catch (IOException e) {
+                status = 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            EndpointStats stats = results.get(endpoint);
+            if (stats != null) stats.record(status, System.nanoTime() - scheduled);
+            scheduled += intervalNanos;
+        }
+        return null;
+    }
+
+    private Endpoint pick() {
+        int total = settings.mix().values().stream().mapToInt(Integer::intValue).sum();
+        int r = ThreadLocalRandom.current().nextInt(total);
+        for (Map.Entry<Endpoint, Integer> e : settings.mix().entrySet()) {
+            r -= e.getValue();
+            if (r < 0) return e.getKey();
+        }
+        throw new IllegalStateException("Empty mix");
+    }
+
+    private HttpRequest.Builder request(Endpoint endpoint) throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String author = author(random.nextInt(settings.authors()));
+        String name = "bp" + random.nextInt(settings.blueprintsPerAuthor());
+        return switch (endpoint) {
+            case GET_ALL -> get("/api/v1/blueprints");
+            case BY_AUTHOR -> get("/api/v1/blueprints/" + author);
+            case BY_AUTHOR_AND_NAME -> get("/api/v1/blueprints/" + author + "/" + name);
+            case POST -> post(author, "load" + postedBlueprints.incrementAndGet());
+            case PUT_POINT -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/blueprints/" + author + "/" + name + "/points"))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(
+                            "{\"x\":%d,\"y\":%d}".formatted(random.nextInt(1000), random.nextInt(1000))));
+        };
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET();
+    }
+
+    private HttpRequest.Builder post(String author, String name) throws IOException {
+        List<Map<String, Integer>> points = new ArrayList<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < settings.pointsPerBlueprint(); i++) {
+            points.add(Map.of("x", random.nextInt(1000), "y", random.nextInt(1000)));
+        }
+        String body = MAPPER.writeValueAsString(Map.of("author", author, "name", name, "points", points));
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/blueprints"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    private int send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.send(request
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .build(), HttpResponse.BodyHandlers.discarding());
+        return response.statusCode();
+    }
+
+    private static String author(int i) { return "loadtest" + i; }
+
+    private void report(Map<Endpoint, EndpointStats> results, double seconds) throws IOException {
+        System.out.printf("%n%-20s %10s %10s %8s %10s %10s %10s %10s  %s%n",
+                "endpoint", "requests", "req/s", "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "statuses");
+        List<JsonNode> json = new ArrayList<>();
+        for (Map.Entry<Endpoint, EndpointStats> e : results.entrySet()) {
+            EndpointStats s = e.getValue();
+            long count = s.latencyMicros.count();
+            if (count == 0) continue;
+            double errorRate = (double) s.errors.get() / count;
+            System.out.printf("%-20s %10d %10.1f %7.2f%% %10.2f %10.2f %10.2f %10.2f  %s%n",
+                    e.getKey(), count, count / seconds, errorRate * 100,
+                    s.latencyMicros.percentile(50) / 1000.0, s.latencyMicros.percentile(99) / 1000.0,
+                    s.latencyMicros.percentile(99.9) / 1000.0, s.latencyMicros.max() / 1000.0, s.statuses);
+            json.add(MAPPER.valueToTree(Map.of(
+                    "endpoint", e.getKey().name(),
+                    "requests", count,
+                    "throughput", count / seconds,
+                    "errorRate", errorRate,
+                    "p50Ms", s.latencyMicros.percentile(50) / 1000.0,
+                    "p99Ms", s.latencyMicros.percentile(99) / 1000.0,
+                    "p999Ms", s.latencyMicros.percentile(99.9) / 1000.0,
+                    "maxMs", s.latencyMicros.max() / 1000.0)));
+        }
+        Path file = settings.resultFile();
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            out.println(MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(json));
+        }
+        System.out.println("\nResults written to " + file.toAbsolutePath());
+    }
+}
@@ -0,0 +1,193 @@
+package co.edu.eci.blueprints.loadtest;
+
+import co.edu.eci.blueprints.BlueprintsApiApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time-to-first-request benchmark for the blueprints API.
+ * Starts the API as a new JVM several times and measures, for each start, the time from launching the process
+ * until a login through {@code /auth/login} followed by an authenticated {@code GET /api/v1/blueprints}
+ * has succeeded, which is what an autoscaled instance must do before it can take traffic.
+ * <p>
+ * The API runs from this classpath, or from {@code startup.jar} when it is set, so the same benchmark compares
+ * profiles, JVM options such as a class-data-sharing archive, and packagings.
+ * Settings are read from system properties, see {@link Settings}.
+ */
+public final class StartupBenchmark {
+
+    /**
+     * Startup benchmark settings.
+     *
+     * @param runs Number of starts measured
+     * @param jar Executable jar to start, or empty to start the main class from this classpath
+     * @param jvmArgs Extra JVM options for the started API
+     * @param profiles Active profiles of the started API
+     * @param port Port the started API listens on
+     * @param timeoutSeconds Maximum time to wait for the first request of one start
+     * @param username User for the login
+     * @param password Password for the login
+     * @param resultFile File where the results are written as JSON
+     */
+    record Settings(int runs, String jar, List<String> jvmArgs, String profiles, int port, int timeoutSeconds,
+                    String username, String password, Path resultFile) {
+
+        static Settings fromSystemProperties() {
+            return new Settings(
+                    Integer.getInteger("startup.runs", 5),
+                    System.getProperty("startup.jar", ""),
+                    split(System.getProperty("startup.jvm-args", "")),
+                    System.getProperty("startup.profiles", "memory"),
+                    Integer.getInteger("startup.port", 18080),
+                    Integer.getInteger("startup.timeout-seconds", 120),
+                    System.getProperty("startup.username", "student"),
+                    System.getProperty("startup.password", "student123"),
+                    Path.of(System.getProperty("startup.result-file", "target/startup-result.json")));
+        }
+
+        private static List<String> split(String value) {
+            return value.isBlank() ? List.of() : Arrays.asList(value.trim().split("\\s+"));
+        }
+    }
+
+    /**
+     * Timings of one start, in milliseconds from launching the process.
+     *
+     * @param loginMs Until the login answered 200
+     * @param firstRequestMs Until the first authenticated API request answered 200
+     */
+    record Run(long loginMs, long firstRequestMs) {}
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Settings settings;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    StartupBenchmark(Settings settings) {
+        this.settings = settings;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new StartupBenchmark(Settings.fromSystemProperties()).run();
+    }
+
+    void run() throws Exception {
+        List<String> command = command();
+        System.out.println("Starting " + settings.runs() + " times: "
+                + String.join(" ", command).replace(System.getProperty("java.class.path"), "<classpath>"));
+        List<Run> runs = new ArrayList<>();
+        for (int i = 1; i <= settings.runs(); i++) {
+            Run run = measure(command, i);
+            System.out.printf("run %d: login %d ms, first request %d ms%n", i, run.loginMs(), run.firstRequestMs());
+            runs.add(run);
+        }
+        report(runs);
+    }
+
+    private List<String> command() {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(settings.jvmArgs());
+        if (settings.jar().isBlank()) {
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(BlueprintsApiApplication.class.getName());
+        } else {
+            command.add("-jar");
+            command.add(settings.jar());
+        }
+        command.add("--spring.profiles.active=" + settings.profiles());
+        command.add("--server.port=" + settings.port());
+        return command;
+    }
+
+    private Run measure(List<String> command, int index) throws IOException, InterruptedException {
+        Path log = settings.resultFile().resolveSibling("startup-run-" + index + ".log");
+        if (log.getParent() != null) Files.createDirectories(log.getParent());
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        try {
+            long deadline = start + TimeUnit.SECONDS.toNanos(settings.timeoutSeconds());
+            String token = null;
+            while (token == null) {
+                if (!process.isAlive()) throw new IllegalStateException("API exited during startup, see " + log);
+                if (System.nanoTime() > deadline) throw new IllegalStateException("API not ready in time, see " + log);
+                token = tryLogin();
+                if (token == null) Thread.sleep(5);
+            }
+            long login = System.nanoTime();
+            HttpResponse<Void> response = client.send(HttpRequest.newBuilder(
+                            URI.create("http://localhost:" + settings.port() + "/api/v1/blueprints"))
+                    .header("Authorization", "Bearer " + token)
+                    .timeout(Duration.ofSeconds(settings.timeoutSeconds()))
+                    .GET().build(), HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("First request failed with status " + response.statusCode());
+            }
+            long first = System.nanoTime();
+            return new Run(TimeUnit.NANOSECONDS.toMillis(login - start), TimeUnit.NANOSECONDS.toMillis(first - start));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) process.destroyForcibly().waitFor();
+        }
+    }
+
+    /**
+     * Attempts the login once.
+     * @return The access token, or null while the API does not accept connections yet
+     */
+    private String tryLogin() throws IOException, InterruptedException {
+        String body = MAPPER.writeValueAsString(Map.of("username", settings.username(), "password", settings.password()));
+        try {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+                            URI.create("http://localhost:" + settings.port() + "/auth/login"))
+                    .header("Content-Type", "application/json")
+                    .timeout(Duration.ofSeconds(settings.timeoutSeconds()))
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) return null;
+            return MAPPER.readTree(response.body()).path("data").path("access_token").asText();
+        } catch (ConnectException | HttpTimeoutException e) {
+            return null;
+        }
+    }
+
+    private void report(List<Run> runs) throws IOException {
+        long[] login = runs.stream().mapToLong(Run::loginMs).sorted().toArray();
+        long[] first = runs.stream().mapToLong(Run::firstRequestMs).sorted().toArray();
+        System.out.printf("%n%-16s %10s %10s %10s%n", "", "min ms", "median ms", "max ms");
+        System.out.printf("%-16s %10d %10d %10d%n", "login", login[0], login[login.length / 2], login[login.length - 1]);
+        System.out.printf("%-16s %10d %10d %10d%n", "first request", first[0], first[first.length / 2], first[first.length - 1]);
+
+        JsonNode json = MAPPER.valueToTree(Map.of(
+                "command", command(),
+                "runs", runs,
+                "medianLoginMs", login[login.length / 2],
+                "medianFirstRequestMs", first[first.length / 2]));
+        Path file = settings.resultFile();
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            out.println(MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(json));
+        }
+        System.out.println("\nResults written to " + file.toAbsolutePath());
+    }
+}
@@ -0,0 +1,208 @@
+package co.edu.eci.blueprints.api;
+
+import co.edu.eci.blueprints.model.Point;
+import co.edu.eci.blueprints.persistence.BlueprintPersistenceException;
+import co.edu.eci.blueprints.persistence.BlueprintSink;
+import co.edu.eci.blueprints.persistence.BlueprintStorageException;
+import co.edu.eci.blueprints.persistence.PointChunks;
+import co.edu.eci.blueprints.persistence.WriteQueueFullException;
+import co.edu.eci.blueprints.services.BlueprintsServices;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+/**
+ * REST controller for backing up and restoring the whole dataset.
+ * The export streams every blueprint, from a consistent snapshot, as gzip-compressed NDJSON: one line per
+ * blueprint in the shape of the create request, {@code {"author":..,"name":..,"points":[{"x":..,"y":..},..]}}.
+ * The import reads the same format. Both work one blueprint and one chunk of points at a time,
+ * so their memory use does not depend on the size of the dataset.
+ */
+@RestController
+@RequestMapping("/api/v1/admin/blueprints")
+public class BlueprintBackupController {
+
+    private static final String GZIP = "application/gzip";
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final DateTimeFormatter FILE_TIMESTAMP =
+        DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+    private final BlueprintsServices services;
+    private final PointStreamReader points;
+    private final JsonFactory json = new JsonFactory();
+
+    /**
+     * Constructs the controller with the required dependencies.
+     * @param services The BlueprintsServices instance
+     * @param points The reader of the point arrays of an import
+     */
+    public BlueprintBackupController(BlueprintsServices services, PointStreamReader points) {
+        this.services = services;
+        this.points = points;
+    }
+
+    /**
+     * Streams every blueprint as gzip-compressed NDJSON. If reading fails once the response has started,
+     * the stream is cut short and the gzip trailer is missing, so a broken backup is detected when it is read.
+     * @param response The response the backup is written to
+     * @throws IOException if the backup cannot be written
+     * @throws BlueprintPersistenceException if the blueprints cannot be read
+     */
+    @Operation(summary = "Exportar todos los blueprints (respaldo)",
+               description = "Devuelve todos los blueprints de una instantánea consistente como NDJSON comprimido con "
+                   + "gzip, una línea por blueprint. Requiere el scope blueprints.admin.")
+    @ApiResponses({
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Respaldo generado")
+    })
+    @PreAuthorize("hasAuthority('SCOPE_blueprints.admin')")
+    @GetMapping(value = "/export", produces = GZIP)
+    public void export(HttpServletResponse response) throws IOException, BlueprintPersistenceException {
+        response.setContentType(GZIP);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+            "attachment; filename=\"blueprints-" + FILE_TIMESTAMP.format(Instant.now()) + ".ndjson.gz\"");
+        try (JsonGenerator out = json.createGenerator(new GZIPOutputStream(response.getOutputStream(), BUFFER_SIZE))) {
+            out.setRootValueSeparator(new SerializedString("\n"));
+            services.exportBlueprints((author, name, chunks) -> {
+                out.writeStartObject();
+                out.writeStringField("author", author);
+                out.writeStringField("name", name);
+                out.writeArrayFieldStart("points");
+                for (List<Point> chunk = chunks.next(); !chunk.isEmpty(); chunk = chunks.next()) {
+                    for (Point p : chunk) {
+                        out.writeStartObject();
+                        out.writeNumberField("x", p.x());
+                        out.writeNumberField("y", p.y());
+                        out.writeEndObject();
+                    }
+                }
+                out.writeEndArray();
+                out.writeEndObject();
+            });
+            out.writeRaw('\n');
+        }
+    }
+
+    /**
+     * Restores blueprints from an export, gzip-compressed ({@code application/gzip}) or plain
+     * ({@code application/x-ndjson}). Blueprints that already exist are rejected; with PostgreSQL
+     * the import is a single transaction, so nothing is stored in that case.
+     * @param request The request whose body is read
+     * @return HTTP 201 with the number of blueprints imported, 400 if the body is invalid or a blueprint
+     *         already exists, 413 if a blueprint has more points than allowed, or 503 if the write-behind
+     *         queue stayed full
+     * @throws IOException if the body cannot be read
+     */
+    @Operation(summary = "Importar blueprints desde un respaldo",
+               description = "Lee el formato de la exportación (NDJSON, con o sin gzip) de forma incremental. "
+                   + "Requiere el scope blueprints.admin.")
+    @ApiResponses({
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "201", description = "Blueprints importados"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "400",
+            description = "Respaldo inválido o blueprint existente",
+            content = @io.swagger.v3.oas.annotations.media.Content(
+                mediaType = "application/json",
+                examples = @io.swagger.v3.oas.annotations.media.ExampleObject(
+                    value = "{\"code\":400,\"message\":\"Blueprint already exists: john:house\",\"data\":null}"
+                )
+            )
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "413", description = "Un blueprint supera la cantidad de puntos permitida"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "503", description = "Cola de escritura llena (perfil write-behind), reintentar")
+    })
+    @PreAuthorize("hasAuthority('SCOPE_blueprints.admin')")
+    @PostMapping(value = "/import", consumes = {GZIP, NDJSON})
+    public ResponseEntity<ApiResponse<Map<String, Long>>> importBackup(HttpServletRequest request) throws IOException {
+        try (JsonParser parser = json.createParser(body(request))) {
+            long imported = services.importBlueprints(sink -> readBlueprints(parser, sink));
+            return ResponseEntity.status(HttpStatus.CREATED)
+                .body(new ApiResponse<>(201, "Created", Map.of("imported", imported))); // 201 Created
+        } catch (UploadLimitExceededException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                .body(new ApiResponse<>(413, e.getMessage(), null)); // 413 Payload Too Large
+        } catch (BlueprintStorageException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ApiResponse<>(500, e.getMessage(), null)); // 500 Internal Server Error
+        } catch (BlueprintPersistenceException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse<>(400, e.getMessage(), null)); // 400 Bad Request
+        } catch (WriteQueueFullException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ApiResponse<>(503, e.getMessage(), null)); // 503 Service Unavailable
+        } catch (JsonProcessingException | ZipException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse<>(400, "Invalid backup: " + e.getMessage(), null)); // 400 Bad Request
+        }
+    }
+
+    private static InputStream body(HttpServletRequest request) throws IOException {
+        InputStream body = request.getInputStream();
+        if (MediaType.parseMediaType(request.getContentType()).isCompatibleWith(MediaType.parseMediaType(GZIP))) {
+            return new GZIPInputStream(body, BUFFER_SIZE);
+        }
+        return body;
+    }
+
+    /**
+     * Hands each blueprint of an export to the sink. The author and the name must come before the points,
+     * as the export writes them, so the points can be stored while they are read.
+     */
+    private void readBlueprints(JsonParser parser, BlueprintSink sink) throws IOException, BlueprintPersistenceException {
+        for (JsonToken token = parser.nextToken(); token != null; token = parser.nextToken()) {
+            if (token != JsonToken.START_OBJECT) throw new BlueprintPersistenceException("Invalid backup: expected a blueprint");
+            String author = null;
+            String name = null;
+            boolean stored = false;
+            for (JsonToken field = parser.nextToken(); field != JsonToken.END_OBJECT; field = parser.nextToken()) {
+                String fieldName = parser.currentName();
+                if ("points".equals(fieldName) && !stored) {
+                    if (author == null || name == null) {
+                        throw new BlueprintPersistenceException("Invalid backup: author and name must precede the points");
+                    }
+                    PointChunks chunks = points.readArray(parser);
+                    sink.accept(author, name, chunks);
+                    // Leave the parser after the array even if the sink did not read every point
+                    while (!chunks.next().isEmpty()) { }
+                    stored = true;
+                    continue;
+                }
+                parser.nextToken();
+                if ("author".equals(fieldName)) author = parser.getValueAsString();
+                else if ("name".equals(fieldName)) name = parser.getValueAsString();
+                else parser.skipChildren();
+            }
+            if (!stored) {
+                if (author == null || name == null) throw new BlueprintPersistenceException("Invalid backup: missing author or name");
+                sink.accept(author, name, List::of);
+            }
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package co.edu.eci.blueprints.api;
+
+import co.edu.eci.blueprints.dto.BlueprintMapper;
+import co.edu.eci.blueprints.model.Blueprint;
+import co.edu.eci.blueprints.persistence.BlueprintChangeBus;
+import co.edu.eci.blueprints.persistence.BlueprintNotFoundException;
+import co.edu.eci.blueprints.services.SingleFlight;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache of the response bodies of {@code GET /api/v1/blueprints/{author}/{bpname}}, serialized to JSON and
+ * gzip-compressed once, so a hot blueprint is answered by writing the stored bytes without loading, filtering,
+ * serializing or compressing it again.
+ * <p>
+ * The body is the one produced by the active {@link co.edu.eci.blueprints.filters.BlueprintsFilter}, which is fixed
+ * for the life of the instance, so entries are keyed by the blueprint's key. An entry is dropped when the
+ * {@link BlueprintChangeBus} reports a change of its blueprint, made here or on another instance; a body built
+ * from a read that raced with a change is not stored. While the bus is disconnected, entries expire after
+ * a short time, since changes made elsewhere are not delivered. The ETag is a digest of the body, so every
+ * instance gives the same one for the same content.
+ * <p>
+ * The stored bytes are bounded; past the bound the least recently used entries are evicted.
+ */
+@Component
+public class BlueprintResponseCache {
+
+    /**
+     * Response bodies of one blueprint: the JSON, its gzip encoding (null when it would not be smaller),
+     * and the digest the ETags are made of.
+     */
+    public static final class Body {
+        private final byte[] json;
+        private final byte[] gzip;
+        private final String digest;
+        /** Whether the body expires, and when; otherwise it is kept until its blueprint changes. */
+        private final boolean expires;
+        private final long expiresAtNanos;
+        private volatile long lastUsedNanos;
+
+        private Body(byte[] json, byte[] gzip, String digest, boolean expires, long expiresAtNanos) {
+            this.json = json;
+            this.gzip = gzip;
+            this.digest = digest;
+            this.expires = expires;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        private boolean fresh(long nowNanos) { return !expires || nowNanos - expiresAtNanos < 0; }
+
+        /**
+         * Gets the body in the best encoding the client accepts.
+         * @param gzipAccepted Whether the client accepts gzip
+         * @return The gzip-compressed body if accepted and available, otherwise the JSON
+         */
+        public byte[] bytes(boolean gzipAccepted) { return gzipAccepted && gzip != null ? gzip : json; }
+
+        /**
+         * Tells whether the gzip encoding is served to a client that accepts it.
+         * @param gzipAccepted Whether the client accepts gzip
+         * @return true if {@link #bytes(boolean)} returns the gzip-compressed body
+         */
+        public boolean gzipped(boolean gzipAccepted) { return gzipAccepted && gzip != null; }
+
+        /**
+         * Gets the strong ETag of the body in the encoding served, which differs between encodings.
+         * @param gzipAccepted Whether the client accepts gzip
+         * @return Quoted entity tag
+         */
+        public String etag(boolean gzipAccepted) {
+            return gzipped(gzipAccepted) ? "\"" + digest + "-gz\"" : "\"" + digest + "\"";
+        }
+
+        /**
+         * Tells whether an If-None-Match header names this body, in any encoding.
+         * @param ifNoneMatch Value of the header, or null
+         * @return true if the client's copy is current
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) return false;
+            for (String tag : ifNoneMatch.split(",")) {
+                String t = tag.trim();
+                if (t.startsWith("W/")) t = t.substring(2);
+                if (t.equals("*") || t.equals("\"" + digest + "\"") || t.equals("\"" + digest + "-gz\"")) return true;
+            }
+            return false;
+        }
+
+        private int size() { return json.length + (gzip == null ? 0 : gzip.length); }
+    }
+
+    /**
+     * Bodies smaller than this are not compressed: the gzip header and the request overhead outweigh the saving.
+     */
+    private static final int MIN_GZIP_BYTES = 1024;
+    private static final int STRIPES = 1024;
+
+    private final ConcurrentHashMap<String, Body> bodies = new ConcurrentHashMap<>();
+    private final SingleFlight<String, Body> builds = new SingleFlight<>();
+    private final ObjectMapper mapper;
+    private final long maxBytes;
+    private final long disconnectedTtlNanos;
+    private final AtomicLong bytes = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Changes seen per stripe of keys, and in total by resets, so a build can tell whether its blueprint
+     * changed while it ran.
+     */
+    private final AtomicLongArray changes = new AtomicLongArray(STRIPES);
+    private final AtomicLong resets = new AtomicLong();
+    private volatile boolean connected;
+
+    /**
+     * Constructs the cache.
+     * @param changes Change bus that reports the blueprints whose bodies are stale
+     * @param mapper JSON mapper of the web layer, so the bodies match the ones Spring MVC writes
+     * @param registry Registry for the cache metrics
+     * @param maxBytes Maximum bytes stored, both encodings included; 0 disables the cache
+     * @param disconnectedTtlMs How long a body is kept while the change bus is disconnected
+     */
+    public BlueprintResponseCache(BlueprintChangeBus changes, ObjectMapper mapper, MeterRegistry registry,
+                                  @Value("${blueprints.response-cache.max-bytes:67108864}") long maxBytes,
+                                  @Value("${blueprints.response-cache.disconnected-ttl-ms:2000}") long disconnectedTtlMs) {
+        this.mapper = mapper;
+        this.maxBytes = maxBytes;
+        this.disconnectedTtlNanos = disconnectedTtlMs * 1_000_000L;
+        changes.subscribe(new BlueprintChangeBus.Listener() {
+            @Override
+            public void changed(Set<String> keys) { keys.forEach(BlueprintResponseCache.this::invalidate); }
+
+            @Override
+            public void reset(boolean connected) { invalidateAll(connected); }
+        });
+        FunctionCounter.builder("blueprints.response_cache.hits", hits, LongAdder::sum)
+                .description("Blueprint responses written from stored bytes")
+                .register(registry);
+        FunctionCounter.builder("blueprints.response_cache.misses", misses, LongAdder::sum)
+                .description("Blueprint responses built by loading, serializing and compressing the blueprint")
+                .register(registry);
+        Gauge.builder("blueprints.response_cache.bytes", bytes, AtomicLong::get)
+                .description("Bytes of stored response bodies, both encodings included")
+                .register(registry);
+    }
+
+    /**
+     * Gets the response body of a blueprint, building and storing it if needed. Concurrent builds of the same
+     * blueprint are coalesced.
+     * @param author The author's name
+     * @param name The blueprint's name
+     * @param load Loads the filtered blueprint
+     * @return The body
+     * @throws BlueprintNotFoundException if the blueprint is not found
+     */
+    public Body get(String author, String name, SingleFlight.Loader<Blueprint, BlueprintNotFoundException> load)
+            throws BlueprintNotFoundException {
+        String key = author + ":" + name;
+        long now = System.nanoTime();
+        Body body = bodies.get(key);
+        if (body != null && body.fresh(now)) {
+            body.lastUsedNanos = now;
+            hits.increment();
+            return body;
+        }
+        return builds.execute(key, () -> build(key, load));
+    }
+
+    private Body build(String key, SingleFlight.Loader<Blueprint, BlueprintNotFoundException> load)
+            throws BlueprintNotFoundException {
+        misses.increment();
+        int stripe = stripe(key);
+        long stripeChanges = changes.get(stripe);
+        long resetCount = resets.get();
+        boolean connectedAtStart = connected;
+
+        byte[] json = serialize(load.load());
+        byte[] gzip = json.length >= MIN_GZIP_BYTES ? gzip(json) : null;
+        if (gzip != null && gzip.length >= json.length) gzip = null;
+        long now = System.nanoTime();
+        Body body = new Body(json, gzip, digest(json), !connectedAtStart, now + disconnectedTtlNanos);
+        body.lastUsedNanos = now;
+
+        // A body larger than a quarter of the bound would evict most of the others
+        if (maxBytes <= 0 || body.size() > maxBytes / 4) return body;
+        Body previous = bodies.put(key, body);
+        bytes.addAndGet(body.size() - (previous == null ? 0 : previous.size()));
+        // A change reported while the blueprint was read may have been missed by the read
+        if (changes.get(stripe) != stripeChanges || resets.get() != resetCount) remove(key, body);
+        if (bytes.get() > maxBytes) evict();
+        return body;
+    }
+
+    private void invalidate(String key) {
+        changes.incrementAndGet(stripe(key));
+        Body body = bodies.remove(key);
+        if (body != null) bytes.addAndGet(-body.size());
+    }
+
+    private void invalidateAll(boolean connected) {
+        this.connected = connected;
+        resets.incrementAndGet();
+        for (String key : bodies.keySet()) {
+            Body body = bodies.remove(key);
+            if (body != null) bytes.addAndGet(-body.size());
+        }
+    }
+
+    private void remove(String key, Body body) {
+        if (bodies.remove(key, body)) bytes.addAndGet(-body.size());
+    }
+
+    /**
+     * Removes the least recently used bodies until the stored bytes are below 90% of the bound.
+     */
+    private synchronized void evict() {
+        if (bytes.get() <= maxBytes) return;
+        List<Map.Entry<String, Body>> entries = new ArrayList<>(bodies.entrySet());
+        entries.sort(Comparator.comparingLong(e -> e.getValue().lastUsedNanos));
+        long target = maxBytes / 10 * 9;
+        for (Map.Entry<String, Body> e : entries) {
+            if (bytes.get() <= target) break;
+            remove(e.getKey(), e.getValue());
+        }
+    }
+
+    private static int stripe(String key) {
+        return (key.hashCode() & 0x7fffffff) % STRIPES;
+    }
+
+    private byte[] serialize(Blueprint bp) {
+        try {
+            return mapper.writeValueAsBytes(new ApiResponse<>(200, "Success", BlueprintMapper.toDTO(bp)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out, 64 * 1024)) {
+            gz.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String digest(byte[] json) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, 16));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,21 +1,29 @@
 package co.edu.eci.blueprints.api;
 
 import co.edu.eci.blueprints.model.Blueprint;
+import co.edu.eci.blueprints.model.BlueprintSummary;
 import co.edu.eci.blueprints.model.Point;
 import co.edu.eci.blueprints.dto.BlueprintDTO;
 import co.edu.eci.blueprints.dto.PointDTO;
 import co.edu.eci.blueprints.dto.BlueprintMapper;
 import co.edu.eci.blueprints.persistence.BlueprintNotFoundException;
 import co.edu.eci.blueprints.persistence.BlueprintPersistenceException;
+import co.edu.eci.blueprints.persistence.BlueprintStorageException;
+import co.edu.eci.blueprints.persistence.WriteQueueFullException;
 import co.edu.eci.blueprints.services.BlueprintsServices;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import org.springframework.security.access.prepost.PreAuthorize;
+import java.io.IOException;
 import java.util.Set;
 import co.edu.eci.blueprints.api.ApiResponse;
 
@@ -34,10 +42,27 @@ public class BlueprintsAPIController {
     private final BlueprintsServices services;
 
     /**
-     * Constructs the controller with the required service dependency.
+     * Parser of streamed point uploads.
+     */
+    private final PointStreamReader uploads;
+
+    /**
+     * Serialized and compressed bodies of single blueprints.
+     */
+    private final BlueprintResponseCache responses;
+
+    /**
+     * Constructs the controller with the required dependencies.
      * @param services The BlueprintsServices instance
+     * @param uploads The reader of streamed point uploads
+     * @param responses The cache of single-blueprint response bodies
      */
-    public BlueprintsAPIController(BlueprintsServices services) { this.services = services; }
+    public BlueprintsAPIController(BlueprintsServices services, PointStreamReader uploads,
+                                   BlueprintResponseCache responses) {
+        this.services = services;
+        this.uploads = uploads;
+        this.responses = responses;
+    }
 
     /**
      * Retrieves all blueprints in the system.
@@ -65,6 +90,22 @@ public class BlueprintsAPIController {
         return ResponseEntity.ok(new ApiResponse<>(200, "Success", dtoSet)); // 200 OK
     }
 
+    /**
+     * Retrieves the summaries of all blueprints (author, name, point count and statistics) without their points.
+     * Selected with the query parameter {@code view=summary}.
+     * @return HTTP 200 with the set of blueprint summaries
+     */
+    @Operation(summary = "Obtener el resumen de todos los blueprints (view=summary)")
+    @ApiResponses({
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Lista de resúmenes obtenida exitosamente")
+    })
+    @PreAuthorize("hasAuthority('SCOPE_blueprints.read')")
+    @GetMapping(params = "view=summary")
+    public ResponseEntity<ApiResponse<Set<BlueprintSummary>>> getAllSummaries() {
+        Set<BlueprintSummary> data = services.getAllBlueprintSummaries();
+        return ResponseEntity.ok(new ApiResponse<>(200, "Success", data)); // 200 OK
+    }
+
     /**
      * Retrieves all blueprints created by a specific author.
      * @param author The author's name
@@ -98,14 +139,62 @@ public class BlueprintsAPIController {
     }
 
     /**
-     * Retrieves a specific blueprint by author and blueprint name.
+     * Retrieves the summaries of the blueprints created by a specific author without their points.
+     * Selected with the query parameter {@code view=summary}.
+     * @param author The author's name
+     * @return HTTP 200 with the set of blueprint summaries, or 404 if none found
+     */
+    @Operation(summary = "Obtener el resumen de los blueprints de un autor (view=summary)")
+    @ApiResponses({
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Lista de resúmenes del autor obtenida exitosamente"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "404",
+            description = "No se encontraron blueprints para el autor",
+            content = @io.swagger.v3.oas.annotations.media.Content(
+                mediaType = "application/json",
+                examples = @io.swagger.v3.oas.annotations.media.ExampleObject(
+                    value = "{\"code\":404,\"message\":\"No se encontraron blueprints para el autor\",\"data\":null}"
+                )
+            )
+        )
+    })
+    @PreAuthorize("hasAuthority('SCOPE_blueprints.read')")
+    @GetMapping(value = "/{author}", params = "view=summary")
+    public ResponseEntity<ApiResponse<Set<BlueprintSummary>>> byAuthorSummaries(@PathVariable String author) {
+        try {
+            Set<BlueprintSummary> data = services.getBlueprintSummariesByAuthor(author);
+            return ResponseEntity.ok(new ApiResponse<>(200, "Success", data)); // 200 OK
+        } catch (BlueprintNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new ApiResponse<>(404, e.getMessage(), null)); // 404 Not Found
+        }
+    }
+
+    /**
+     * Retrieves a specific blueprint by author and blueprint name. The body is served from the response cache,
+     * gzip-compressed when the client accepts it, and with an ETag, so a client holding the current
+     * version gets 304 without a body.
      * @param author The author's name
      * @param bpname The blueprint's name
-     * @return HTTP 200 with the blueprint, or 404 if not found
+     * @param acceptEncoding Encodings accepted by the client
+     * @param ifNoneMatch ETags of the copies held by the client
+     * @return HTTP 200 with the blueprint, 304 if the client's copy is current, or 404 if not found
      */
-    @Operation(summary = "Obtener un blueprint por autor y nombre")
+    @Operation(summary = "Obtener un blueprint por autor y nombre",
+               description = "La respuesta se sirve desde una caché de cuerpos ya serializados, comprimida con gzip "
+                   + "si el cliente envía Accept-Encoding: gzip, y con ETag para peticiones condicionales.")
     @ApiResponses({
-        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Blueprint obtenido exitosamente"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200",
+            description = "Blueprint obtenido exitosamente",
+            content = @io.swagger.v3.oas.annotations.media.Content(
+                mediaType = "application/json",
+                examples = @io.swagger.v3.oas.annotations.media.ExampleObject(
+                    value = "{\"code\":200,\"message\":\"Success\",\"data\":{\"id\":1,\"author\":\"john\",\"name\":\"house\",\"points\":[{\"x\":0,\"y\":0}]}}"
+                )
+            )
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "304", description = "La copia del cliente está vigente"),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(
             responseCode = "404",
             description = "Blueprint no encontrado",
@@ -119,11 +208,81 @@ public class BlueprintsAPIController {
     })
     @PreAuthorize("hasAuthority('SCOPE_blueprints.read')")
     @GetMapping("/{author}/{bpname}")
-    public ResponseEntity<ApiResponse<BlueprintDTO>> byAuthorAndName(@PathVariable String author, @PathVariable String bpname) {
+    public ResponseEntity<?> byAuthorAndName(@PathVariable String author, @PathVariable String bpname,
+                                             @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            BlueprintResponseCache.Body body = responses.get(author, bpname, () -> services.getBlueprint(author, bpname));
+            boolean gzip = acceptsGzip(acceptEncoding);
+            if (body.matches(ifNoneMatch)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(body.etag(gzip)).varyBy(HttpHeaders.ACCEPT_ENCODING).build(); // 304 Not Modified
+            }
+            ResponseEntity.BodyBuilder ok = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON).eTag(body.etag(gzip)).varyBy(HttpHeaders.ACCEPT_ENCODING);
+            if (body.gzipped(gzip)) ok.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return ok.body(body.bytes(gzip)); // 200 OK
+        } catch (BlueprintNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new ApiResponse<>(404, e.getMessage(), null)); // 404 Not Found
+        }
+    }
+
+    /**
+     * Tells whether an Accept-Encoding header accepts gzip, that is, names gzip or * without q=0.
+     * Parameter names are case-insensitive; a q value that is not a number is ignored, as if it were 1.
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if (!name.equalsIgnoreCase("gzip") && !name.equalsIgnoreCase("x-gzip") && !name.equals("*")) continue;
+            boolean refused = false;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.regionMatches(true, 0, "q=", 0, 2) && qValue(param.substring(2)) == 0) refused = true;
+            }
+            if (!refused) return true;
+        }
+        return false;
+    }
+
+    private static double qValue(String value) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
+    /**
+     * Retrieves the aggregate statistics of a blueprint (point count, bounding box, centroid and path length)
+     * without transferring its points.
+     * @param author The author's name
+     * @param bpname The blueprint's name
+     * @return HTTP 200 with the blueprint summary, or 404 if not found
+     */
+    @Operation(summary = "Obtener el resumen estadístico de un blueprint")
+    @ApiResponses({
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Resumen obtenido exitosamente"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "404",
+            description = "Blueprint no encontrado",
+            content = @io.swagger.v3.oas.annotations.media.Content(
+                mediaType = "application/json",
+                examples = @io.swagger.v3.oas.annotations.media.ExampleObject(
+                    value = "{\"code\":404,\"message\":\"Blueprint no encontrado\",\"data\":null}"
+                )
+            )
+        )
+    })
+    @PreAuthorize("hasAuthority('SCOPE_blueprints.read')")
+    @GetMapping("/{author}/{bpname}/summary")
+    public ResponseEntity<ApiResponse<BlueprintSummary>> summary(@PathVariable String author, @PathVariable String bpname) {
         try {
-            Blueprint data = services.getBlueprint(author, bpname);
-            BlueprintDTO dto = BlueprintMapper.toDTO(data);
-            return ResponseEntity.ok(new ApiResponse<>(200, "Success", dto)); // 200 OK
+            BlueprintSummary data = services.getBlueprintSummary(author, bpname);
+            return ResponseEntity.ok(new ApiResponse<>(200, "Success", data)); // 200 OK
         } catch (BlueprintNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                 .body(new ApiResponse<>(404, e.getMessage(), null)); // 404 Not Found
@@ -138,6 +297,7 @@ public class BlueprintsAPIController {
     @Operation(summary = "Agregar un nuevo blueprint")
     @ApiResponses({
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "201", description = "Blueprint creado exitosamente"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "503", description = "Cola de escritura llena (perfil write-behind), reintentar"),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(
             responseCode = "400",
             description = "Solicitud inválida o datos incorrectos",
@@ -169,9 +329,87 @@ public class BlueprintsAPIController {
             services.addNewBlueprint(bp);
             return ResponseEntity.status(HttpStatus.CREATED)
                 .body(new ApiResponse<>(201, "Created", null)); // 201 Created
+        } catch (BlueprintStorageException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ApiResponse<>(500, e.getMessage(), null)); // 500 Internal Server Error
+        } catch (BlueprintPersistenceException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse<>(400, e.getMessage(), null)); // 400 Bad Request
+        } catch (WriteQueueFullException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ApiResponse<>(503, e.getMessage(), null)); // 503 Service Unavailable
+        }
+    }
+
+    /**
+     * Creates a new blueprint from a streamed body holding only its points, a JSON array of {@code {"x":..,"y":..}}.
+     * The points are parsed incrementally and stored in chunks, so large uploads are never held in memory as a whole.
+     * @param author The author's name
+     * @param bpname The blueprint's name
+     * @param request The request whose body is read
+     * @return HTTP 201 if created, 400 if the points are invalid or the blueprint already exists,
+     *         or 413 if the body exceeds the configured size or number of points
+     * @throws IOException if the body cannot be opened
+     */
+    @Operation(summary = "Crear un blueprint grande enviando sus puntos como flujo",
+               description = "El cuerpo es un arreglo JSON de puntos. Se lee de forma incremental y se guarda por "
+                   + "bloques, sin cargar todo el arreglo en memoria. Los límites de tamaño se configuran con "
+                   + "blueprints.upload.max-bytes y blueprints.upload.max-points.")
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(
+        content = @io.swagger.v3.oas.annotations.media.Content(
+            mediaType = "application/json",
+            array = @io.swagger.v3.oas.annotations.media.ArraySchema(
+                schema = @io.swagger.v3.oas.annotations.media.Schema(implementation = PointDTO.class))
+        )
+    )
+    @ApiResponses({
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "201", description = "Blueprint creado exitosamente"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "503", description = "Cola de escritura llena (perfil write-behind), reintentar"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "400",
+            description = "Puntos inválidos o el blueprint ya existe",
+            content = @io.swagger.v3.oas.annotations.media.Content(
+                mediaType = "application/json",
+                examples = @io.swagger.v3.oas.annotations.media.ExampleObject(
+                    value = "{\"code\":400,\"message\":\"Puntos inválidos\",\"data\":null}"
+                )
+            )
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "413",
+            description = "El cuerpo supera el tamaño o la cantidad de puntos permitidos",
+            content = @io.swagger.v3.oas.annotations.media.Content(
+                mediaType = "application/json",
+                examples = @io.swagger.v3.oas.annotations.media.ExampleObject(
+                    value = "{\"code\":413,\"message\":\"Carga demasiado grande\",\"data\":null}"
+                )
+            )
+        )
+    })
+    @PreAuthorize("hasAuthority('SCOPE_blueprints.write')")
+    @PostMapping(value = "/{author}/{bpname}", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse<Void>> upload(@PathVariable String author, @PathVariable String bpname,
+                                                    HttpServletRequest request) throws IOException {
+        if (request.getContentLengthLong() > uploads.maxBytes()) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                .body(new ApiResponse<>(413, "Body larger than " + uploads.maxBytes() + " bytes", null)); // 413 Payload Too Large
+        }
+        try {
+            services.addNewBlueprint(author, bpname, uploads.read(request.getInputStream()));
+            return ResponseEntity.status(HttpStatus.CREATED)
+                .body(new ApiResponse<>(201, "Created", null)); // 201 Created
+        } catch (UploadLimitExceededException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                .body(new ApiResponse<>(413, e.getMessage(), null)); // 413 Payload Too Large
+        } catch (BlueprintStorageException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ApiResponse<>(500, e.getMessage(), null)); // 500 Internal Server Error
         } catch (BlueprintPersistenceException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                 .body(new ApiResponse<>(400, e.getMessage(), null)); // 400 Bad Request
+        } catch (WriteQueueFullException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ApiResponse<>(503, e.getMessage(), null)); // 503 Service Unavailable
         }
     }
 
@@ -180,11 +418,15 @@ public class BlueprintsAPIController {
      * @param author The author's name
      * @param bpname The blueprint's name
      * @param p The point to add
-     * @return HTTP 202 if accepted, or 404 if the blueprint is not found
+     * @return HTTP 202 if accepted, 404 if the blueprint is not found,
+     *         409 if concurrent appends kept conflicting after every retry,
+     *         500 if the point could not be stored, or 503 if the write-behind queue stayed full
      */
     @Operation(summary = "Agregar un punto a un blueprint existente")
     @ApiResponses({
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "202", description = "Punto agregado exitosamente"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "El punto no se pudo guardar (por ejemplo, falló el journal) y no se agregó"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "503", description = "Cola de escritura llena (perfil write-behind), reintentar"),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(
             responseCode = "404",
             description = "Blueprint no encontrado",
@@ -204,6 +446,16 @@ public class BlueprintsAPIController {
                     value = "{\"code\":400,\"message\":\"Solicitud inválida o datos incorrectos\",\"data\":null}"
                 )
             )
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "409",
+            description = "El blueprint se modificó concurrentemente y se agotaron los reintentos",
+            content = @io.swagger.v3.oas.annotations.media.Content(
+                mediaType = "application/json",
+                examples = @io.swagger.v3.oas.annotations.media.ExampleObject(
+                    value = "{\"code\":409,\"message\":\"Conflicto de concurrencia, intente de nuevo\",\"data\":null}"
+                )
+            )
         )
     })
     @PreAuthorize("hasAuthority('SCOPE_blueprints.addPoint')")
@@ -217,6 +469,15 @@ public class BlueprintsAPIController {
         } catch (BlueprintNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                 .body(new ApiResponse<>(404, e.getMessage(), null)); // 404 Not Found
+        } catch (BlueprintPersistenceException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ApiResponse<>(500, e.getMessage(), null)); // 500 Internal Server Error
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new ApiResponse<>(409, "Concurrent update of " + author + "/" + bpname + ", retry", null)); // 409 Conflict
+        } catch (WriteQueueFullException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ApiResponse<>(503, e.getMessage(), null)); // 503 Service Unavailable
         }
     }
 
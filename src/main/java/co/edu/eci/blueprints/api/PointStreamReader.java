@@ -0,0 +1,149 @@
+package co.edu.eci.blueprints.api;
+
+import co.edu.eci.blueprints.model.Point;
+import co.edu.eci.blueprints.persistence.BlueprintPersistenceException;
+import co.edu.eci.blueprints.persistence.PointChunks;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.fasterxml.jackson.core.exc.StreamConstraintsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the body of a streamed blueprint upload, a JSON array of points such as
+ * {@code [{"x":10,"y":20},{"x":15,"y":25}]}, with Jackson's streaming parser.
+ * Points are handed out in chunks as they are parsed, so the memory used by an upload is bounded by the chunk
+ * size rather than by the size of the body. As with {@link co.edu.eci.blueprints.dto.PointDTO},
+ * unknown fields are ignored and a missing coordinate is 0. The size of the body and the number of points are limited.
+ */
+@Component
+public class PointStreamReader {
+
+    private final JsonFactory json;
+    private final int chunkSize;
+    private final long maxPoints;
+    private final long maxBytes;
+
+    /**
+     * Constructs the reader.
+     * @param chunkSize Points per chunk handed to the persistence layer
+     * @param maxPoints Maximum number of points of one upload
+     * @param maxBytes Maximum size of the body of one upload
+     */
+    public PointStreamReader(@Value("${blueprints.upload.chunk-size:1000}") int chunkSize,
+                             @Value("${blueprints.upload.max-points:10000000}") long maxPoints,
+                             @Value("${blueprints.upload.max-bytes:268435456}") long maxBytes) {
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxPoints = maxPoints;
+        this.maxBytes = maxBytes;
+        this.json = JsonFactory.builder()
+                .streamReadConstraints(StreamReadConstraints.builder().maxDocumentLength(maxBytes).build())
+                .build();
+    }
+
+    /**
+     * Gets the maximum size of the body of one upload.
+     * @return Maximum size in bytes
+     */
+    public long maxBytes() { return maxBytes; }
+
+    /**
+     * Starts reading the points of an upload. The body is consumed as the chunks are requested.
+     * @param body Body of the request
+     * @return Source of the points, in chunks
+     * @throws BlueprintPersistenceException if the body cannot be opened
+     */
+    public PointChunks read(InputStream body) throws BlueprintPersistenceException {
+        try {
+            return new Chunks(json.createParser(body), true);
+        } catch (IOException e) {
+            throw new BlueprintPersistenceException("Error reading points: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the points of an array nested in a larger document, such as one blueprint of an import.
+     * The parser is left after the end of the array once every chunk was read.
+     * @param parser Parser positioned right before the array of points
+     * @return Source of the points of the array, in chunks
+     */
+    PointChunks readArray(JsonParser parser) {
+        return new Chunks(parser, false);
+    }
+
+    private final class Chunks implements PointChunks {
+
+        private final JsonParser parser;
+        private final boolean root;
+        private long count;
+        private boolean started;
+        private boolean finished;
+
+        Chunks(JsonParser parser, boolean root) {
+            this.parser = parser;
+            this.root = root;
+        }
+
+        @Override
+        public List<Point> next() throws BlueprintPersistenceException {
+            if (finished) return List.of();
+            try {
+                if (!started) {
+                    if (parser.nextToken() != JsonToken.START_ARRAY) throw invalid("expected an array of points");
+                    started = true;
+                }
+                List<Point> chunk = new ArrayList<>(chunkSize);
+                while (chunk.size() < chunkSize) {
+                    JsonToken token = parser.nextToken();
+                    if (token == JsonToken.END_ARRAY) {
+                        finished = true;
+                        if (root) {
+                            if (parser.nextToken() != null) throw invalid("unexpected content after the array");
+                            parser.close();
+                        }
+                        break;
+                    }
+                    if (token != JsonToken.START_OBJECT) throw invalid("expected a point object");
+                    if (++count > maxPoints) throw new UploadLimitExceededException("More than " + maxPoints + " points");
+                    chunk.add(point());
+                }
+                return chunk;
+            } catch (StreamConstraintsException e) {
+                throw new UploadLimitExceededException("Body larger than " + maxBytes + " bytes");
+            } catch (JsonProcessingException e) {
+                throw invalid(e.getOriginalMessage());
+            } catch (IOException e) {
+                throw new BlueprintPersistenceException("Error reading points: " + e.getMessage());
+            }
+        }
+
+        private Point point() throws IOException, BlueprintPersistenceException {
+            int x = 0;
+            int y = 0;
+            for (JsonToken token = parser.nextToken(); token != JsonToken.END_OBJECT; token = parser.nextToken()) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (!"x".equals(field) && !"y".equals(field)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                if (value != JsonToken.VALUE_NUMBER_INT) throw invalid("coordinate " + field + " must be an integer");
+                if ("x".equals(field)) x = parser.getIntValue();
+                else y = parser.getIntValue();
+            }
+            return new Point(x, y);
+        }
+
+        private BlueprintPersistenceException invalid(String reason) {
+            return new BlueprintPersistenceException("Invalid points at point " + count + ": " + reason);
+        }
+    }
+}
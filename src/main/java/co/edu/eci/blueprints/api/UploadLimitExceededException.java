@@ -0,0 +1,16 @@
+package co.edu.eci.blueprints.api;
+
+import co.edu.eci.blueprints.persistence.BlueprintPersistenceException;
+
+/**
+ * Exception thrown when a streamed blueprint upload exceeds the configured size or point count.
+ * Nothing of the upload is stored.
+ */
+public class UploadLimitExceededException extends BlueprintPersistenceException {
+
+    /**
+     * Constructs a new UploadLimitExceededException with the specified detail message.
+     * @param msg the detail message naming the limit that was exceeded
+     */
+    public UploadLimitExceededException(String msg) { super(msg); }
+}
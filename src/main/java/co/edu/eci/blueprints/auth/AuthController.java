@@ -56,7 +56,7 @@ public class AuthController {
         long ttl = props.tokenTtlSeconds() != null ? props.tokenTtlSeconds() : 3600;
         Instant exp = now.plusSeconds(ttl);
 
-        String scope = "blueprints.read blueprints.write";
+        String scope = userService.scopeOf(req.username());
 
         JwtClaimsSet claims = JwtClaimsSet.builder()
                 .issuer(props.issuer())
@@ -0,0 +1,32 @@
+package co.edu.eci.blueprints.config;
+
+import co.edu.eci.blueprints.persistence.BlueprintPersistence;
+import co.edu.eci.blueprints.security.JwtKeyProvider;
+import co.edu.eci.blueprints.services.BlueprintsServices;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+
+import javax.sql.DataSource;
+
+/**
+ * Lazy initialization for the "fast-start" profile (see application-fast-start.properties).
+ * Beans are created on first use, except those every request path needs and those whose startup work must finish
+ * before the instance takes traffic: the persistence (journal replay, write-behind warm-up), the database access
+ * and the JWT keys. Everything else, such as springdoc, the actuator endpoints and the controllers' collaborators
+ * that only some requests reach, is created by the first request that uses it.
+ */
+@Configuration
+@Profile("fast-start")
+public class FastStartConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter eagerRequestPathBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(BlueprintPersistence.class, BlueprintsServices.class,
+                DataSource.class, EntityManagerFactory.class, JwtKeyProvider.class, JwtDecoder.class, JwtEncoder.class);
+    }
+}
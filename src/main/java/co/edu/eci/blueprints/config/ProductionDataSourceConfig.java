@@ -0,0 +1,52 @@
+package co.edu.eci.blueprints.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+
+/**
+ * Connection pool sizing for the "production" profile (see application-production.properties).
+ * Unless {@code blueprints.datasource.pool-size} is set, the pool is sized as {@code 2 * CPUs + 1}, the usual
+ * starting point for PostgreSQL. With platform threads the pool is also capped at Tomcat's thread count, since
+ * more connections than request threads are never used. With virtual threads requests are not bounded by a
+ * thread pool, so the pool is what limits database concurrency and waiting requests time out after
+ * {@code spring.datasource.hikari.connection-timeout}. The pool is fixed size (minimum idle equals maximum).
+ */
+@Configuration
+@Profile("production")
+public class ProductionDataSourceConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductionDataSourceConfig.class);
+
+    @Bean
+    static BeanPostProcessor hikariPoolSizer(Environment env) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikari) {
+                    int size = poolSize(env);
+                    hikari.setMaximumPoolSize(size);
+                    hikari.setMinimumIdle(size);
+                    log.info("Connection pool sized to {} connections", size);
+                }
+                return bean;
+            }
+        };
+    }
+
+    static int poolSize(Environment env) {
+        int configured = env.getProperty("blueprints.datasource.pool-size", Integer.class, 0);
+        if (configured > 0) return configured;
+        int size = 2 * Runtime.getRuntime().availableProcessors() + 1;
+        boolean virtualThreads = env.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+        if (!virtualThreads) {
+            size = Math.min(size, env.getProperty("server.tomcat.threads.max", Integer.class, 200));
+        }
+        return size;
+    }
+}
@@ -0,0 +1,143 @@
+package co.edu.eci.blueprints.filters;
+
+import co.edu.eci.blueprints.model.Blueprint;
+import co.edu.eci.blueprints.model.BlueprintStats;
+import co.edu.eci.blueprints.model.Point;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parallel execution of a point filter for large blueprints.
+ * The points are split into contiguous chunks that are filtered on a fork-join pool, each one together with the
+ * statistics of the points it keeps; the chunks are then concatenated in order and their statistics combined,
+ * so the result is the same blueprint the sequential filter produces.
+ */
+final class ParallelPoints {
+
+    /**
+     * Decides whether a point is kept, looking only at the original list, so that chunks can be filtered
+     * independently. A rule that compares a point with its neighbours reads across the chunk boundary.
+     */
+    @FunctionalInterface
+    interface Rule {
+        boolean keep(List<Point> points, int index);
+    }
+
+    /** Smallest chunk worth a task of its own. */
+    static final int MIN_CHUNK = 16_384;
+    /** Chunks per worker, so that a slow worker does not hold back the whole filter. */
+    static final int CHUNKS_PER_WORKER = 4;
+
+    private final int parallelism;
+    private final int threshold;
+    /** Pool of the parallel mode, created on the first parallel filter; guarded by this. */
+    private ForkJoinPool pool;
+
+    /**
+     * Constructs the parallel executor. No pool is created until a blueprint is actually filtered in parallel.
+     * @param parallelism Workers of a dedicated pool, or 0 to use the common fork-join pool
+     * @param threshold Minimum number of points filtered in parallel; 0 disables the parallel mode
+     */
+    ParallelPoints(int parallelism, int threshold) {
+        this.parallelism = parallelism;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Tells whether a blueprint with this many points is filtered in parallel.
+     * @param size Number of points
+     * @return true if the size reaches the threshold and the pool has more than one worker
+     */
+    boolean applies(int size) {
+        return threshold > 0 && size >= threshold && workers() > 1;
+    }
+
+    /**
+     * Shuts down the dedicated pool, if one was created. The common pool is left alone.
+     */
+    synchronized void close() {
+        if (pool != null && pool != ForkJoinPool.commonPool()) pool.shutdown();
+        pool = null;
+    }
+
+    /**
+     * Filters the points of a blueprint in parallel.
+     * @param bp Blueprint to filter
+     * @param rule Rule selecting the points kept
+     * @return Read-only blueprint with the points kept, in their original order
+     */
+    Blueprint filter(Blueprint bp, Rule rule) {
+        List<Point> points = bp.getPoints();
+        int size = points.size();
+        int chunks = Math.max(1, Math.min(workers() * CHUNKS_PER_WORKER, size / MIN_CHUNK));
+        Chunk[] results = new Chunk[chunks];
+        pool().invoke(new ChunkTask(points, rule, results, 0, chunks));
+
+        int kept = 0;
+        for (Chunk chunk : results) kept += chunk.points.size();
+        List<Point> filtered = new ArrayList<>(kept);
+        BlueprintStats stats = new BlueprintStats();
+        for (Chunk chunk : results) {
+            if (chunk.points.isEmpty()) continue;
+            Point first = chunk.points.get(0);
+            stats.append(chunk.stats, first.x(), first.y());
+            filtered.addAll(chunk.points);
+        }
+        return Blueprint.view(bp.getAuthor(), bp.getName(), filtered, stats);
+    }
+
+    private int workers() {
+        return parallelism > 0 ? parallelism : ForkJoinPool.getCommonPoolParallelism();
+    }
+
+    private synchronized ForkJoinPool pool() {
+        if (pool == null) pool = parallelism > 0 ? new ForkJoinPool(parallelism) : ForkJoinPool.commonPool();
+        return pool;
+    }
+
+    private record Chunk(List<Point> points, BlueprintStats stats) {}
+
+    /**
+     * Filters the chunks in [from, to), splitting the range in halves until a single chunk is left.
+     */
+    private static final class ChunkTask extends RecursiveAction {
+
+        private final List<Point> points;
+        private final Rule rule;
+        private final Chunk[] results;
+        private final int from;
+        private final int to;
+
+        ChunkTask(List<Point> points, Rule rule, Chunk[] results, int from, int to) {
+            this.points = points;
+            this.rule = rule;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ChunkTask(points, rule, results, from, mid), new ChunkTask(points, rule, results, mid, to));
+                return;
+            }
+            int start = (int) ((long) points.size() * from / results.length);
+            int end = (int) ((long) points.size() * to / results.length);
+            List<Point> kept = new ArrayList<>(end - start);
+            BlueprintStats stats = new BlueprintStats();
+            for (int i = start; i < end; i++) {
+                if (rule.keep(points, i)) {
+                    Point p = points.get(i);
+                    kept.add(p);
+                    stats.accept(p.x(), p.y());
+                }
+            }
+            results[from] = new Chunk(kept, stats);
+        }
+    }
+}
@@ -2,6 +2,8 @@ package co.edu.eci.blueprints.filters;
 
 import co.edu.eci.blueprints.model.Blueprint;
 import co.edu.eci.blueprints.model.Point;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
@@ -16,7 +18,27 @@ import java.util.List;
 @Component
 @Profile("redundancy")
 public class RedundancyFilter implements BlueprintsFilter {
-    
+
+    private final ParallelPoints parallel;
+
+    /**
+     * Constructs the filter.
+     * @param parallelism Workers filtering large blueprints, or 0 to use the common fork-join pool
+     * @param parallelThreshold Minimum number of points filtered in parallel; 0 always filters sequentially
+     */
+    public RedundancyFilter(@Value("${blueprints.filters.parallelism:0}") int parallelism,
+                            @Value("${blueprints.filters.parallel-threshold:100000}") int parallelThreshold) {
+        this.parallel = new ParallelPoints(parallelism, parallelThreshold);
+    }
+
+    /**
+     * Shuts down the pool of the parallel mode, if the filter created one.
+     */
+    @PreDestroy
+    public void close() {
+        parallel.close();
+    }
+
     @Override
     public Blueprint apply(Blueprint bp) {
         List<Point> originalPoints = bp.getPoints();
@@ -25,6 +47,10 @@ public class RedundancyFilter implements BlueprintsFilter {
         if (originalPoints == null || originalPoints.size() <= 1) {
             return bp;
         }
+
+        if (parallel.applies(originalPoints.size())) {
+            return parallel.filter(bp, RedundancyFilter::keep);
+        }
         
         List<Point> filteredPoints = new ArrayList<>();
         
@@ -46,4 +72,12 @@ public class RedundancyFilter implements BlueprintsFilter {
         
         return new Blueprint(bp.getAuthor(), bp.getName(), filteredPoints);
     }
-}
\ No newline at end of file
+
+    /**
+     * Keeps a point unless it equals the one right before it in the original list. This keeps the same points
+     * as comparing with the last point kept, since a skipped point always equals the last one kept.
+     */
+    static boolean keep(List<Point> points, int index) {
+        return index == 0 || !points.get(index).equals(points.get(index - 1));
+    }
+}
@@ -2,6 +2,8 @@ package co.edu.eci.blueprints.filters;
 
 import co.edu.eci.blueprints.model.Blueprint;
 import co.edu.eci.blueprints.model.Point;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
@@ -15,7 +17,27 @@ import java.util.List;
 @Component
 @Profile("undersampling")
 public class UndersamplingFilter implements BlueprintsFilter {
-    
+
+    private final ParallelPoints parallel;
+
+    /**
+     * Constructs the filter.
+     * @param parallelism Workers filtering large blueprints, or 0 to use the common fork-join pool
+     * @param parallelThreshold Minimum number of points filtered in parallel; 0 always filters sequentially
+     */
+    public UndersamplingFilter(@Value("${blueprints.filters.parallelism:0}") int parallelism,
+                               @Value("${blueprints.filters.parallel-threshold:100000}") int parallelThreshold) {
+        this.parallel = new ParallelPoints(parallelism, parallelThreshold);
+    }
+
+    /**
+     * Shuts down the pool of the parallel mode, if the filter created one.
+     */
+    @PreDestroy
+    public void close() {
+        parallel.close();
+    }
+
     @Override
     public Blueprint apply(Blueprint bp) {
         List<Point> originalPoints = bp.getPoints();
@@ -24,6 +46,10 @@ public class UndersamplingFilter implements BlueprintsFilter {
         if (originalPoints == null || originalPoints.size() <= 1) {
             return bp;
         }
+
+        if (parallel.applies(originalPoints.size())) {
+            return parallel.filter(bp, UndersamplingFilter::keep);
+        }
         
         List<Point> filteredPoints = new ArrayList<>();
         
@@ -36,4 +62,11 @@ public class UndersamplingFilter implements BlueprintsFilter {
         
         return new Blueprint(bp.getAuthor(), bp.getName(), filteredPoints);
     }
-}
\ No newline at end of file
+
+    /**
+     * Keeps the points at even indices of the original list.
+     */
+    static boolean keep(List<Point> points, int index) {
+        return index % 2 == 0;
+    }
+}
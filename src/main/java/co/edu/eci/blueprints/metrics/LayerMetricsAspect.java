@@ -0,0 +1,93 @@
+package co.edu.eci.blueprints.metrics;
+
+import co.edu.eci.blueprints.tracing.RequestTrace;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every call through the layers of the blueprint request path: REST controllers, services,
+ * persistence and filters. Each call is recorded in the {@value #TIMER} timer with the tags
+ * {@code layer}, {@code class}, {@code method} and {@code outcome} (success or the exception's simple name).
+ * Request values such as the author are never used as tags, so the number of series stays bounded.
+ * Each call is also a span of the current {@link RequestTrace}.
+ */
+@Aspect
+@Component
+public class LayerMetricsAspect {
+
+    /**
+     * Name of the timer recording the calls.
+     */
+    public static final String TIMER = "blueprints.layer.calls";
+
+    private final MeterRegistry registry;
+
+    /**
+     * Timers of successful calls, so the common path does not rebuild meter ids.
+     */
+    private final Map<TimerKey, Timer> successTimers = new ConcurrentHashMap<>();
+
+    public LayerMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("within(co.edu.eci.blueprints.api..*) && @within(org.springframework.web.bind.annotation.RestController)")
+    public Object controller(ProceedingJoinPoint pjp) throws Throwable {
+        return time("controller", pjp);
+    }
+
+    @Around("within(co.edu.eci.blueprints.services..*)")
+    public Object service(ProceedingJoinPoint pjp) throws Throwable {
+        return time("service", pjp);
+    }
+
+    @Around("execution(* co.edu.eci.blueprints.persistence.BlueprintPersistence+.*(..))")
+    public Object persistence(ProceedingJoinPoint pjp) throws Throwable {
+        return time("persistence", pjp);
+    }
+
+    @Around("execution(* co.edu.eci.blueprints.filters.BlueprintsFilter+.apply(..))")
+    public Object filter(ProceedingJoinPoint pjp) throws Throwable {
+        return time("filter", pjp);
+    }
+
+    private Object time(String layer, ProceedingJoinPoint pjp) throws Throwable {
+        long start = System.nanoTime();
+        try (RequestTrace.Span span = RequestTrace.span(layer, pjp.getSignature())) {
+            Object result = pjp.proceed();
+            TimerKey key = new TimerKey(layer, AopUtils.getTargetClass(pjp.getTarget()),
+                    ((MethodSignature) pjp.getSignature()).getMethod());
+            successTimers.computeIfAbsent(key, k -> timer(layer, pjp, "success"))
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable t) {
+            timer(layer, pjp, t.getClass().getSimpleName())
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw t;
+        }
+    }
+
+    private Timer timer(String layer, ProceedingJoinPoint pjp, String outcome) {
+        return Timer.builder(TIMER)
+                .description("Calls through the blueprint request path by layer")
+                .tag("layer", layer)
+                .tag("class", AopUtils.getTargetClass(pjp.getTarget()).getSimpleName())
+                .tag("method", pjp.getSignature().getName())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private record TimerKey(String layer, Class<?> targetClass, Method method) {}
+}
@@ -0,0 +1,25 @@
+package co.edu.eci.blueprints.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Registers the instrumentation that cannot be applied with an aspect,
+ * and enables the scheduler used to sample the SQL statistics.
+ */
+@Configuration
+@EnableScheduling
+public class MetricsConfig {
+
+    /**
+     * Declared static so the post-processor is created before the security beans it wraps,
+     * without initializing the meter registry early.
+     */
+    @Bean
+    static SecurityMetricsPostProcessor securityMetricsPostProcessor(ObjectProvider<MeterRegistry> registry) {
+        return new SecurityMetricsPostProcessor(registry);
+    }
+}
@@ -0,0 +1,88 @@
+package co.edu.eci.blueprints.metrics;
+
+import co.edu.eci.blueprints.tracing.RequestTrace;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Wraps the {@link JwtDecoder}, {@link JwtEncoder} and {@link PasswordEncoder} beans so that token verification,
+ * token signing and password hashing are timed in the {@value #TIMER} timer, tagged by {@code operation} and
+ * {@code outcome}, and traced as spans of the current {@link RequestTrace}.
+ * The Nimbus implementations are final classes, so they are decorated instead of proxied.
+ */
+public class SecurityMetricsPostProcessor implements BeanPostProcessor {
+
+    /**
+     * Name of the timer recording the security operations.
+     */
+    public static final String TIMER = "blueprints.security.operations";
+
+    private final ObjectProvider<MeterRegistry> registry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public SecurityMetricsPostProcessor(ObjectProvider<MeterRegistry> registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof JwtDecoder decoder) {
+            return (JwtDecoder) token -> time("jwt.decode", () -> decoder.decode(token));
+        }
+        if (bean instanceof JwtEncoder encoder) {
+            return (JwtEncoder) (JwtEncoderParameters parameters) -> time("jwt.encode", () -> encoder.encode(parameters));
+        }
+        if (bean instanceof PasswordEncoder encoder) {
+            return new PasswordEncoder() {
+                @Override
+                public String encode(CharSequence rawPassword) {
+                    return time("password.encode", () -> encoder.encode(rawPassword));
+                }
+
+                @Override
+                public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                    return time("password.matches", () -> encoder.matches(rawPassword, encodedPassword));
+                }
+
+                @Override
+                public boolean upgradeEncoding(String encodedPassword) {
+                    return encoder.upgradeEncoding(encodedPassword);
+                }
+            };
+        }
+        return bean;
+    }
+
+    private <T> T time(String operation, Supplier<T> call) {
+        long start = System.nanoTime();
+        String outcome = "success";
+        try (RequestTrace.Span span = RequestTrace.span(operation, null)) {
+            return call.get();
+        } catch (JwtException e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            String o = outcome;
+            timers.computeIfAbsent(operation + ':' + outcome, k -> Timer.builder(TIMER)
+                            .description("JWT and password hashing operations")
+                            .tag("operation", operation)
+                            .tag("outcome", o)
+                            .publishPercentileHistogram()
+                            .register(registry.getObject()))
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
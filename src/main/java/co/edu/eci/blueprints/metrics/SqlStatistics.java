@@ -0,0 +1,143 @@
+package co.edu.eci.blueprints.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CollectionStatistics;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-query-shape SQL statistics taken from Hibernate statistics ({@code hibernate.generate_statistics}).
+ * Queries are keyed by their JPQL text with bound parameters, so each key is a query shape.
+ * Hibernate updates plain counters on each execution; this class samples them every
+ * {@code blueprints.sql-stats.refresh-ms} to register meters for new shapes, and builds the top-N report on demand.
+ * Without JPA (profiles with their own storage) or with statistics disabled, it reports nothing.
+ */
+@Component
+public class SqlStatistics {
+
+    private static final int MAX_TAG_LENGTH = 200;
+
+    private final Statistics statistics;
+    private final MeterRegistry registry;
+    private final Set<String> registered = ConcurrentHashMap.newKeySet();
+
+    public SqlStatistics(ObjectProvider<EntityManagerFactory> entityManagerFactory, MeterRegistry registry) {
+        EntityManagerFactory emf = entityManagerFactory.getIfAvailable();
+        Statistics stats = emf == null ? null : emf.unwrap(SessionFactory.class).getStatistics();
+        this.statistics = stats != null && stats.isStatisticsEnabled() ? stats : null;
+        this.registry = registry;
+        if (statistics != null) {
+            FunctionCounter.builder("blueprints.sql.statements.prepared", statistics, Statistics::getPrepareStatementCount)
+                    .description("JDBC statements prepared, including lazy loads")
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Registers meters for query shapes and collection roles seen since the last sample.
+     */
+    @Scheduled(fixedDelayString = "${blueprints.sql-stats.refresh-ms:10000}")
+    public void sample() {
+        if (statistics == null) return;
+        for (String query : statistics.getQueries()) {
+            if (!registered.add(query)) continue;
+            QueryStatistics q = statistics.getQueryStatistics(query);
+            String shape = tag(query);
+            FunctionTimer.builder("blueprints.sql.queries", q,
+                            QueryStatistics::getExecutionCount, QueryStatistics::getExecutionTotalTime, TimeUnit.MILLISECONDS)
+                    .description("Query executions by shape")
+                    .tag("query", shape)
+                    .register(registry);
+            FunctionCounter.builder("blueprints.sql.rows", q, QueryStatistics::getExecutionRowCount)
+                    .description("Rows returned by shape")
+                    .tag("query", shape)
+                    .register(registry);
+            Gauge.builder("blueprints.sql.queries.max", q, QueryStatistics::getExecutionMaxTime)
+                    .description("Slowest execution by shape")
+                    .tag("query", shape)
+                    .baseUnit("milliseconds")
+                    .register(registry);
+        }
+        for (String role : statistics.getCollectionRoleNames()) {
+            if (!registered.add(role)) continue;
+            FunctionCounter.builder("blueprints.sql.collection.fetches", statistics.getCollectionStatistics(role),
+                            CollectionStatistics::getFetchCount)
+                    .description("Lazy collection loads by role")
+                    .tag("role", role)
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Gets the query shapes with the highest average execution time.
+     * @param limit Maximum number of shapes returned
+     * @return Query shapes, slowest first
+     */
+    public List<QueryShape> slowest(int limit) {
+        if (statistics == null) return List.of();
+        return Arrays.stream(statistics.getQueries())
+                .map(q -> QueryShape.of(q, statistics.getQueryStatistics(q)))
+                .filter(s -> s.executions() > 0)
+                .sorted(Comparator.comparingDouble(QueryShape::avgMs).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Whether statistics are being collected.
+     * @return true if JPA is active and Hibernate statistics are enabled
+     */
+    public boolean enabled() { return statistics != null; }
+
+    /**
+     * Gets the number of JDBC statements prepared since startup.
+     * @return Prepared statements, or 0 when statistics are not collected
+     */
+    public long preparedStatements() { return statistics == null ? 0 : statistics.getPrepareStatementCount(); }
+
+    private static String normalize(String query) {
+        return query.replaceAll("\\s+", " ").trim();
+    }
+
+    private static String tag(String query) {
+        String s = normalize(query);
+        return s.length() <= MAX_TAG_LENGTH ? s : s.substring(0, MAX_TAG_LENGTH);
+    }
+
+    /**
+     * Statistics of one query shape.
+     *
+     * @param query Query text with parameter placeholders
+     * @param executions Number of executions
+     * @param avgMs Average execution time
+     * @param maxMs Slowest execution time
+     * @param minMs Fastest execution time
+     * @param totalMs Sum of all execution times
+     * @param rows Rows returned by all executions
+     * @param rowsPerExecution Average rows returned per execution
+     */
+    public record QueryShape(String query, long executions, double avgMs, long maxMs, long minMs, long totalMs,
+                             long rows, double rowsPerExecution) {
+        static QueryShape of(String query, QueryStatistics q) {
+            long n = q.getExecutionCount();
+            return new QueryShape(normalize(query), n, q.getExecutionAvgTimeAsDouble(), q.getExecutionMaxTime(),
+                    q.getExecutionMinTime(), q.getExecutionTotalTime(), q.getExecutionRowCount(),
+                    n == 0 ? 0 : (double) q.getExecutionRowCount() / n);
+        }
+    }
+}
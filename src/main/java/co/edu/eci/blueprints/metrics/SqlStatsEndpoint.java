@@ -0,0 +1,39 @@
+package co.edu.eci.blueprints.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint listing the slowest query shapes: {@code GET /actuator/sqlstats?top=10}.
+ */
+@Component
+@Endpoint(id = "sqlstats")
+public class SqlStatsEndpoint {
+
+    private static final int DEFAULT_TOP = 10;
+
+    private final SqlStatistics sqlStatistics;
+
+    public SqlStatsEndpoint(SqlStatistics sqlStatistics) {
+        this.sqlStatistics = sqlStatistics;
+    }
+
+    @ReadOperation
+    public SqlStatsReport sqlStats(@Nullable Integer top) {
+        return new SqlStatsReport(sqlStatistics.enabled(), sqlStatistics.preparedStatements(),
+                sqlStatistics.slowest(top == null ? DEFAULT_TOP : top));
+    }
+
+    /**
+     * SQL statistics report.
+     *
+     * @param enabled Whether statistics are collected (JPA active and Hibernate statistics enabled)
+     * @param preparedStatements JDBC statements prepared since startup, including lazy loads
+     * @param slowest Query shapes with the highest average execution time, slowest first
+     */
+    public record SqlStatsReport(boolean enabled, long preparedStatements, List<SqlStatistics.QueryShape> slowest) {}
+}
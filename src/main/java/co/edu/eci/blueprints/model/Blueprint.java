@@ -12,7 +12,8 @@ import java.util.Objects;
  * This class is mapped as a JPA entity for database persistence.
  */
 @Entity
-@Table(name = "blueprints")
+@Table(name = "blueprints",
+       uniqueConstraints = @UniqueConstraint(name = "uk_blueprints_author_name", columnNames = {"author", "name"}))
 public class Blueprint {
 
     /**
@@ -22,6 +23,13 @@ public class Blueprint {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    /**
+     * Version used for optimistic locking. Adding a point increments it, so two transactions
+     * that append to the same blueprint cannot both commit against the same version.
+     */
+    @Version
+    private long version;
+
     /**
      * Name of the blueprint's author.
      */
@@ -36,11 +44,20 @@ public class Blueprint {
 
     /**
      * List of points that make up the blueprint.
-     * Stored as an element collection in the database.
+     * Stored as an element collection in the database, with an order column so that
+     * appending a point inserts one row instead of rewriting the whole collection.
      */
     @ElementCollection
+    @CollectionTable(name = "blueprint_points", joinColumns = @JoinColumn(name = "blueprint_id"))
+    @OrderColumn(name = "point_order")
     private List<Point> points = new ArrayList<>();
 
+    /**
+     * Aggregate statistics of the points, updated on every added point.
+     */
+    @Embedded
+    private BlueprintStats stats = new BlueprintStats();
+
     /**
      * Default constructor required by JPA.
      */
@@ -55,7 +72,25 @@ public class Blueprint {
     public Blueprint(String author, String name, List<Point> pts) {
         this.author = author;
         this.name = name;
-        if (pts != null) points.addAll(pts);
+        if (pts != null) pts.forEach(this::addPoint);
+    }
+
+    /**
+     * Creates a read-only blueprint over an existing list of points, such as a view of storage kept
+     * outside the heap. The list is used as is, without copying, so adding points is not supported.
+     * @param author Name of the author
+     * @param name Name of the blueprint
+     * @param pointsView Points of the blueprint
+     * @param stats Statistics describing exactly those points
+     * @return Blueprint backed by the given list
+     */
+    public static Blueprint view(String author, String name, List<Point> pointsView, BlueprintStats stats) {
+        Blueprint bp = new Blueprint();
+        bp.author = author;
+        bp.name = name;
+        bp.points = pointsView;
+        bp.stats = new BlueprintStats(stats);
+        return bp;
     }
 
     /**
@@ -64,6 +99,12 @@ public class Blueprint {
      */
     public Long getId() { return id; }
 
+    /**
+     * Gets the optimistic-locking version of the blueprint.
+     * @return Version, incremented on every change
+     */
+    public long getVersion() { return version; }
+
     /**
      * Gets the name of the blueprint's author.
      * @return Author's name
@@ -86,7 +127,26 @@ public class Blueprint {
      * Adds a point to the blueprint's list of points.
      * @param p Point to add
      */
-    public void addPoint(Point p) { points.add(p); }
+    public void addPoint(Point p) {
+        points.add(p);
+        stats().accept(p.x(), p.y());
+    }
+
+    /**
+     * Gets the summary of the blueprint built from its aggregate statistics.
+     * Does not read the list of points.
+     * @return Blueprint summary
+     */
+    public BlueprintSummary summary() { return stats().toSummary(author, name); }
+
+    /**
+     * Gets the aggregate statistics, tolerating rows loaded before the statistics columns existed.
+     * @return Aggregate statistics
+     */
+    private BlueprintStats stats() {
+        if (stats == null) stats = new BlueprintStats();
+        return stats;
+    }
 
     /**
      * Compares this blueprint with another object to determine if they are equal.
@@ -0,0 +1,142 @@
+package co.edu.eci.blueprints.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+/**
+ * Aggregate statistics of a blueprint's points, maintained incrementally as points are added.
+ * Each update is O(1), so summaries never need to read the points collection.
+ * Stored as embedded columns of the blueprints table.
+ */
+@Embeddable
+public class BlueprintStats {
+
+    @Column(name = "point_count", columnDefinition = "integer default 0")
+    private int pointCount;
+
+    @Column(name = "min_x", columnDefinition = "integer default 0")
+    private int minX;
+
+    @Column(name = "min_y", columnDefinition = "integer default 0")
+    private int minY;
+
+    @Column(name = "max_x", columnDefinition = "integer default 0")
+    private int maxX;
+
+    @Column(name = "max_y", columnDefinition = "integer default 0")
+    private int maxY;
+
+    @Column(name = "sum_x", columnDefinition = "bigint default 0")
+    private long sumX;
+
+    @Column(name = "sum_y", columnDefinition = "bigint default 0")
+    private long sumY;
+
+    /**
+     * Last point added, kept so the path length can be extended without reading the points.
+     */
+    @Column(name = "last_x", columnDefinition = "integer default 0")
+    private int lastX;
+
+    @Column(name = "last_y", columnDefinition = "integer default 0")
+    private int lastY;
+
+    @Column(name = "path_length", columnDefinition = "double precision default 0")
+    private double pathLength;
+
+    /**
+     * Creates empty statistics (no points).
+     */
+    public BlueprintStats() {}
+
+    /**
+     * Creates a copy of the given statistics.
+     * @param other Statistics to copy
+     */
+    public BlueprintStats(BlueprintStats other) {
+        this.pointCount = other.pointCount;
+        this.minX = other.minX;
+        this.minY = other.minY;
+        this.maxX = other.maxX;
+        this.maxY = other.maxY;
+        this.sumX = other.sumX;
+        this.sumY = other.sumY;
+        this.lastX = other.lastX;
+        this.lastY = other.lastY;
+        this.pathLength = other.pathLength;
+    }
+
+    /**
+     * Updates the statistics with a newly appended point in O(1).
+     * @param x The x-coordinate of the new point
+     * @param y The y-coordinate of the new point
+     */
+    public void accept(int x, int y) {
+        if (pointCount == 0) {
+            minX = maxX = x;
+            minY = maxY = y;
+        } else {
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            pathLength += Math.hypot((double) x - lastX, (double) y - lastY);
+        }
+        sumX += x;
+        sumY += y;
+        lastX = x;
+        lastY = y;
+        pointCount++;
+    }
+
+    /**
+     * Appends the statistics of the points that follow the ones described here, so that consecutive chunks
+     * of a list of points can be measured independently and combined in order.
+     * The path length may differ from a single pass in the last bits, since the sums are grouped differently.
+     * @param next Statistics of the following points
+     * @param firstX The x-coordinate of the first of the following points
+     * @param firstY The y-coordinate of the first of the following points
+     */
+    public void append(BlueprintStats next, int firstX, int firstY) {
+        if (next.pointCount == 0) return;
+        if (pointCount == 0) {
+            minX = next.minX;
+            minY = next.minY;
+            maxX = next.maxX;
+            maxY = next.maxY;
+            pathLength = next.pathLength;
+        } else {
+            minX = Math.min(minX, next.minX);
+            minY = Math.min(minY, next.minY);
+            maxX = Math.max(maxX, next.maxX);
+            maxY = Math.max(maxY, next.maxY);
+            pathLength += Math.hypot((double) firstX - lastX, (double) firstY - lastY) + next.pathLength;
+        }
+        sumX += next.sumX;
+        sumY += next.sumY;
+        lastX = next.lastX;
+        lastY = next.lastY;
+        pointCount += next.pointCount;
+    }
+
+    /**
+     * Builds a summary of these statistics for the given blueprint key.
+     * @param author The author of the blueprint
+     * @param name The name of the blueprint
+     * @return Summary with bounding box, centroid and path length
+     */
+    public BlueprintSummary toSummary(String author, String name) {
+        return new BlueprintSummary(author, name, sumX, sumY, pointCount, minX, minY, maxX, maxY, pathLength);
+    }
+
+    public int getPointCount() { return pointCount; }
+    public int getMinX() { return minX; }
+    public int getMinY() { return minY; }
+    public int getMaxX() { return maxX; }
+    public int getMaxY() { return maxY; }
+    public long getSumX() { return sumX; }
+    public long getSumY() { return sumY; }
+    public double getPathLength() { return pathLength; }
+    public int getLastX() { return lastX; }
+    public int getLastY() { return lastY; }
+}
@@ -0,0 +1,35 @@
+package co.edu.eci.blueprints.model;
+
+/**
+ * Lightweight view of a blueprint: its key plus aggregate statistics, without the points.
+ *
+ * @param author The author of the blueprint
+ * @param name The name of the blueprint
+ * @param pointCount Number of points
+ * @param minX Minimum x-coordinate of the bounding box (0 when there are no points)
+ * @param minY Minimum y-coordinate of the bounding box (0 when there are no points)
+ * @param maxX Maximum x-coordinate of the bounding box (0 when there are no points)
+ * @param maxY Maximum y-coordinate of the bounding box (0 when there are no points)
+ * @param centroidX Mean x-coordinate of the points (0 when there are no points)
+ * @param centroidY Mean y-coordinate of the points (0 when there are no points)
+ * @param pathLength Length of the polyline joining the points in order
+ */
+public record BlueprintSummary(String author, String name, int pointCount,
+                               int minX, int minY, int maxX, int maxY,
+                               double centroidX, double centroidY, double pathLength) {
+
+    /**
+     * Creates a summary from raw coordinate sums.
+     * Also used as the JPQL constructor expression, so it only takes stored columns;
+     * the sums come first to keep it distinct from the canonical constructor.
+     */
+    public BlueprintSummary(String author, String name, long sumX, long sumY, int pointCount,
+                            int minX, int minY, int maxX, int maxY, double pathLength) {
+        this(author, name, pointCount, minX, minY, maxX, maxY,
+             mean(sumX, pointCount), mean(sumY, pointCount), pathLength);
+    }
+
+    private static double mean(long sum, int count) {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+}
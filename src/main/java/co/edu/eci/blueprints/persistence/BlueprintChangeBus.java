@@ -0,0 +1,48 @@
+package co.edu.eci.blueprints.persistence;
+
+import java.util.Set;
+
+/**
+ * Channel that tells every instance of the application which blueprints were changed by any of them,
+ * so the caches kept by each instance can drop what is stale.
+ * Delivery is best effort: a listener is reset whenever changes may have been missed.
+ */
+public interface BlueprintChangeBus {
+
+    /**
+     * Receiver of change events.
+     */
+    interface Listener {
+
+        /**
+         * Called with the keys of blueprints changed since the previous call.
+         * @param keys Blueprint keys, "author:name"
+         */
+        void changed(Set<String> keys);
+
+        /**
+         * Called when any blueprint may have changed without an event, and when the channel connects or drops.
+         * @param connected Whether later changes will be delivered
+         */
+        void reset(boolean connected);
+    }
+
+    /**
+     * Announces that a blueprint changed. The listeners of this instance are told before the call returns,
+     * those of the other instances shortly after. Call once the change is committed.
+     * @param key Blueprint key, "author:name"
+     */
+    void publish(String key);
+
+    /**
+     * Announces that any blueprint may have changed, as after a bulk import; the listeners are reset.
+     * Call once the changes are committed.
+     */
+    void publishAll();
+
+    /**
+     * Registers a listener, which is reset right away with the current state of the channel.
+     * @param listener Receiver of the changes published by every instance, this one included
+     */
+    void subscribe(Listener listener);
+}
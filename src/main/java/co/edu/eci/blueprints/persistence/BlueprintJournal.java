@@ -0,0 +1,607 @@
+package co.edu.eci.blueprints.persistence;
+
+import co.edu.eci.blueprints.model.Blueprint;
+import co.edu.eci.blueprints.model.Point;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of blueprint changes with compact snapshots.
+ * <p>
+ * Records are appended to an in-memory buffer and written to the current segment file by a single writer
+ * thread, which forces them to disk according to the {@link FsyncPolicy}. With {@code ALWAYS}, every
+ * appender waiting in {@link #sync(long)} is released by the same {@code fsync} (group commit).
+ * Segments are named {@code journal-<id>.log}; a snapshot records the first segment it does not include,
+ * so recovery loads the snapshot and replays only the newer segments. Recovery reads files memory-mapped.
+ * Every segment is forced before the next one is created, so only the last segment can end in a torn record.
+ * <p>
+ * Record layout: payload length (int), CRC32C of the payload (int), payload. The payload is the record type
+ * (byte), author and name (int length + UTF-8 bytes each) and either the points of a saved blueprint
+ * (int count + x/y int pairs) or the coordinates of one added point.
+ */
+public class BlueprintJournal implements Closeable {
+
+    /**
+     * When appended records are forced to disk.
+     */
+    public enum FsyncPolicy {
+        /** Each change is acknowledged only after an fsync; concurrent changes share one fsync. */
+        ALWAYS,
+        /** Changes are acknowledged when buffered and forced to disk at a fixed interval. */
+        INTERVAL,
+        /**
+         * Changes are acknowledged when buffered; the operating system decides when to write them,
+         * except that a segment is forced before the next one is started.
+         */
+        NEVER
+    }
+
+    /**
+     * Receives the changes read back from a snapshot or the journal during recovery.
+     * Either method may throw to report a change that does not fit the state rebuilt so far.
+     */
+    public interface Visitor {
+        void onSave(String author, String name, List<Point> points) throws IOException;
+        void onPoint(String author, String name, int x, int y) throws IOException;
+    }
+
+    /**
+     * A blueprint to include in a snapshot, with the number of its points that belong to the snapshot.
+     * @param blueprint The blueprint
+     * @param pointCount Number of leading points to write
+     */
+    public record SnapshotEntry(Blueprint blueprint, int pointCount) {}
+
+    private static final byte SAVE = 1;
+    private static final byte POINT = 2;
+    private static final int HEADER_BYTES = 8;
+    private static final int SNAPSHOT_MAGIC = 0x42505331; // "BPS1"
+    private static final int SNAPSHOT_END = 0x454E4421; // "END!"
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int MAX_BUFFERED_BYTES = 16 << 20;
+    private static final long MAP_WINDOW_BYTES = 1L << 30;
+
+    private final Path dir;
+    private final FsyncPolicy policy;
+    private final long fsyncIntervalNanos;
+    private final long segmentMaxBytes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hasData = lock.newCondition();
+    private final Condition progress = lock.newCondition();
+    private final CRC32C crc = new CRC32C();
+    private ByteBuffer active = ByteBuffer.allocate(1 << 16);
+    private ByteBuffer spare = ByteBuffer.allocate(1 << 16);
+    private long appendedSeq;
+    private long durableSeq;
+    private long currentSegment;
+    private boolean rollRequested;
+    private boolean closed;
+    private IOException failure;
+
+    // Owned by the writer thread
+    private FileChannel channel;
+    private long segmentBytes;
+    private long lastForceNanos = System.nanoTime();
+    private boolean unsynced;
+
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final Thread writer;
+
+    /**
+     * Opens a journal that appends to a new segment.
+     * @param dir Directory holding the segments and the snapshot
+     * @param firstSegment Id of the segment to create
+     * @param policy When appended records are forced to disk
+     * @param fsyncIntervalMs Interval between forces with {@link FsyncPolicy#INTERVAL}
+     * @param segmentMaxBytes Size after which the writer starts a new segment
+     * @throws IOException if the segment cannot be created
+     */
+    public BlueprintJournal(Path dir, long firstSegment, FsyncPolicy policy, long fsyncIntervalMs,
+                            long segmentMaxBytes) throws IOException {
+        this.dir = dir;
+        this.policy = policy;
+        this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMs);
+        this.segmentMaxBytes = segmentMaxBytes;
+        Files.createDirectories(dir);
+        openSegment(firstSegment);
+        this.writer = Thread.ofPlatform().name("blueprints-journal").daemon().start(this::run);
+    }
+
+    /**
+     * Appends the creation of a blueprint with its current points.
+     * @param bp The saved blueprint
+     * @return Sequence number to pass to {@link #sync(long)}
+     */
+    public long appendSave(Blueprint bp) {
+        byte[] author = bp.getAuthor().getBytes(StandardCharsets.UTF_8);
+        byte[] name = bp.getName().getBytes(StandardCharsets.UTF_8);
+        List<Point> points = bp.getPoints();
+        int payload = 1 + 4 + author.length + 4 + name.length + 4 + 8 * points.size();
+        lock.lock();
+        try {
+            ByteBuffer buf = reserve(payload);
+            int start = buf.position();
+            buf.putInt(payload).putInt(0).put(SAVE);
+            putBytes(buf, author);
+            putBytes(buf, name);
+            buf.putInt(points.size());
+            for (Point p : points) buf.putInt(p.x()).putInt(p.y());
+            return commitRecord(buf, start, payload);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends a point added to a blueprint.
+     * @param author The author of the blueprint
+     * @param name The name of the blueprint
+     * @param x The x-coordinate of the point
+     * @param y The y-coordinate of the point
+     * @return Sequence number to pass to {@link #sync(long)}
+     */
+    public long appendPoint(String author, String name, int x, int y) {
+        byte[] a = author.getBytes(StandardCharsets.UTF_8);
+        byte[] n = name.getBytes(StandardCharsets.UTF_8);
+        int payload = 1 + 4 + a.length + 4 + n.length + 8;
+        lock.lock();
+        try {
+            ByteBuffer buf = reserve(payload);
+            int start = buf.position();
+            buf.putInt(payload).putInt(0).put(POINT);
+            putBytes(buf, a);
+            putBytes(buf, n);
+            buf.putInt(x).putInt(y);
+            return commitRecord(buf, start, payload);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the record with the given sequence number is durable according to the fsync policy.
+     * Returns immediately for {@link FsyncPolicy#INTERVAL} and {@link FsyncPolicy#NEVER}.
+     * @param seq Sequence number returned by an append
+     * @throws IOException if the journal could not be written
+     */
+    public void sync(long seq) throws IOException {
+        lock.lock();
+        try {
+            if (policy == FsyncPolicy.ALWAYS) {
+                while (durableSeq < seq && failure == null) progress.awaitUninterruptibly();
+            }
+            if (failure != null) throw failure;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes every record appended so far to the current segment and continues in a new one.
+     * Callers must prevent concurrent appends for the returned id to be a consistent cut.
+     * @return Id of the new segment; every earlier record lives in an older segment
+     * @throws IOException if the journal could not be written
+     */
+    public long rollSegment() throws IOException {
+        lock.lock();
+        try {
+            rollRequested = true;
+            hasData.signal();
+            while (rollRequested && failure == null) progress.awaitUninterruptibly();
+            if (failure != null) throw failure;
+            return currentSegment;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of bytes written to segments since the journal was opened.
+     * @return Bytes written
+     */
+    public long bytesWritten() { return bytesWritten.get(); }
+
+    /**
+     * Writes and forces every pending record, then closes the current segment.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            hasData.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) throw failure;
+    }
+
+    private ByteBuffer reserve(int payload) {
+        if (failure != null) throw new UncheckedIOException(failure);
+        if (closed) throw new IllegalStateException("Journal is closed");
+        while (active.position() > MAX_BUFFERED_BYTES && failure == null) progress.awaitUninterruptibly();
+        int needed = HEADER_BYTES + payload;
+        if (active.remaining() < needed) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(active.capacity() * 2, active.position() + needed));
+            active.flip();
+            bigger.put(active);
+            active = bigger;
+        }
+        return active;
+    }
+
+    private long commitRecord(ByteBuffer buf, int start, int payload) {
+        crc.reset();
+        crc.update(buf.array(), start + HEADER_BYTES, payload);
+        buf.putInt(start + 4, (int) crc.getValue());
+        hasData.signal();
+        return ++appendedSeq;
+    }
+
+    private static void putBytes(ByteBuffer buf, byte[] bytes) {
+        buf.putInt(bytes.length).put(bytes);
+    }
+
+    private void openSegment(long id) throws IOException {
+        channel = FileChannel.open(segmentPath(dir, id),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segmentBytes = 0;
+        currentSegment = id;
+    }
+
+    /**
+     * Writer loop: drains the append buffer to the current segment, forces it as the policy requires
+     * and rolls segments.
+     */
+    private void run() {
+        try {
+            while (true) {
+                ByteBuffer batch;
+                long upTo;
+                boolean roll;
+                boolean finished;
+                lock.lock();
+                try {
+                    while (active.position() == 0 && !rollRequested && !closed && !intervalForceDue()) {
+                        if (policy == FsyncPolicy.INTERVAL && unsynced) {
+                            hasData.awaitNanos(fsyncIntervalNanos - (System.nanoTime() - lastForceNanos));
+                        } else {
+                            hasData.await();
+                        }
+                    }
+                    batch = active;
+                    active = spare;
+                    spare = batch;
+                    upTo = appendedSeq;
+                    roll = rollRequested;
+                    finished = closed;
+                    progress.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    int n = channel.write(batch);
+                    segmentBytes += n;
+                    bytesWritten.addAndGet(n);
+                    unsynced = true;
+                }
+                batch.clear();
+
+                boolean segmentFull = segmentBytes >= segmentMaxBytes;
+                boolean force = unsynced && switch (policy) {
+                    case ALWAYS -> true;
+                    case INTERVAL -> intervalForceDue() || roll || segmentFull || finished;
+                    case NEVER -> roll || segmentFull || finished;
+                };
+                if (force) {
+                    channel.force(false);
+                    unsynced = false;
+                    lastForceNanos = System.nanoTime();
+                }
+                if (roll || segmentFull) {
+                    channel.close();
+                    lock.lock();
+                    try {
+                        openSegment(currentSegment + 1);
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+
+                lock.lock();
+                try {
+                    if (!unsynced) durableSeq = upTo;
+                    if (roll) rollRequested = false;
+                    progress.signalAll();
+                    if (finished && active.position() == 0) break;
+                } finally {
+                    lock.unlock();
+                }
+            }
+            channel.close();
+        } catch (IOException e) {
+            fail(e);
+        } catch (InterruptedException e) {
+            fail(new IOException("Journal writer interrupted", e));
+        }
+    }
+
+    private boolean intervalForceDue() {
+        return policy == FsyncPolicy.INTERVAL && unsynced
+                && System.nanoTime() - lastForceNanos >= fsyncIntervalNanos;
+    }
+
+    private void fail(IOException e) {
+        lock.lock();
+        try {
+            failure = e;
+            progress.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ---------------------------------------------------------------- recovery and snapshots
+
+    /**
+     * Reads the snapshot, if any, into the visitor.
+     * @param dir Journal directory
+     * @param visitor Receives one save per blueprint in the snapshot
+     * @return Id of the first segment not included in the snapshot, or 0 when there is no snapshot
+     * @throws IOException if the snapshot exists but cannot be read
+     */
+    public static long readSnapshot(Path dir, Visitor visitor) throws IOException {
+        Path file = dir.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(file)) return 0;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedReader in = new MappedReader(ch);
+            if (in.readInt() != SNAPSHOT_MAGIC) throw new IOException("Not a blueprint snapshot: " + file);
+            long nextSegment = in.readLong();
+            int blueprints = in.readInt();
+            for (int i = 0; i < blueprints; i++) {
+                String author = in.readString();
+                String name = in.readString();
+                int count = in.readInt();
+                List<Point> points = new ArrayList<>(count);
+                for (int j = 0; j < count; j++) points.add(new Point(in.readInt(), in.readInt()));
+                visitor.onSave(author, name, points);
+            }
+            if (in.readInt() != SNAPSHOT_END) throw new IOException("Truncated blueprint snapshot: " + file);
+            return nextSegment;
+        }
+    }
+
+    /**
+     * Replays every segment with an id greater than or equal to {@code fromSegment}, in order.
+     * A torn or corrupt record at the end of the journal, that is in the last segment with records, is what
+     * a crash during a write leaves behind: the segment is truncated to its last valid record. Anywhere else
+     * it means records that were acknowledged are damaged, and recovery fails rather than apply the newer
+     * segments over a gap.
+     * @param dir Journal directory
+     * @param fromSegment First segment to replay
+     * @param visitor Receives the changes in journal order
+     * @return Id to use for the next segment
+     * @throws IOException if a segment cannot be read, holds a bad record before the end of the journal,
+     *                     or the visitor rejects a change
+     */
+    public static long replay(Path dir, long fromSegment, Visitor visitor) throws IOException {
+        List<Long> ids = segmentIds(dir).stream().filter(id -> id >= fromSegment).toList();
+        long next = fromSegment;
+        for (int i = 0; i < ids.size(); i++) {
+            long id = ids.get(i);
+            next = id + 1;
+            Path file = segmentPath(dir, id);
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long valid = replaySegment(ch, visitor);
+                if (valid < ch.size()) {
+                    if (!emptySegments(dir, ids.subList(i + 1, ids.size()))) {
+                        throw new IOException("Corrupt journal record at byte %d of %s, followed by newer segments"
+                                .formatted(valid, file));
+                    }
+                    ch.truncate(valid);
+                    ch.force(true);
+                }
+            }
+        }
+        return next;
+    }
+
+    private static boolean emptySegments(Path dir, List<Long> ids) throws IOException {
+        for (long id : ids) {
+            if (Files.size(segmentPath(dir, id)) > 0) return false;
+        }
+        return true;
+    }
+
+    private static long replaySegment(FileChannel ch, Visitor visitor) throws IOException {
+        MappedReader in = new MappedReader(ch);
+        CRC32C check = new CRC32C();
+        while (in.remaining() >= HEADER_BYTES) {
+            long recordStart = in.position();
+            int payload = in.readInt();
+            int expected = in.readInt();
+            if (payload <= 0 || in.remaining() < payload) return recordStart;
+            ByteBuffer body = in.slice(payload);
+            check.reset();
+            check.update(body.duplicate());
+            if ((int) check.getValue() != expected) return recordStart;
+            byte type = body.get();
+            String author = readString(body);
+            String name = readString(body);
+            if (type == SAVE) {
+                int count = body.getInt();
+                List<Point> points = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) points.add(new Point(body.getInt(), body.getInt()));
+                visitor.onSave(author, name, points);
+            } else if (type == POINT) {
+                visitor.onPoint(author, name, body.getInt(), body.getInt());
+            } else {
+                return recordStart;
+            }
+        }
+        return in.position();
+    }
+
+    /**
+     * Writes a snapshot atomically: to a temporary file, forced, then renamed over the previous one.
+     * Each blueprint is locked only while its points are copied.
+     * @param dir Journal directory
+     * @param nextSegment First segment whose records are not included
+     * @param entries Blueprints with the number of points to include
+     * @throws IOException if the snapshot cannot be written
+     */
+    public static void writeSnapshot(Path dir, long nextSegment, List<SnapshotEntry> entries) throws IOException {
+        Path tmp = dir.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20);
+            buf.putInt(SNAPSHOT_MAGIC).putLong(nextSegment).putInt(entries.size());
+            for (SnapshotEntry entry : entries) {
+                Blueprint bp = entry.blueprint();
+                List<Point> points;
+                synchronized (bp) {
+                    points = new ArrayList<>(bp.getPoints().subList(0, entry.pointCount()));
+                }
+                byte[] author = bp.getAuthor().getBytes(StandardCharsets.UTF_8);
+                byte[] name = bp.getName().getBytes(StandardCharsets.UTF_8);
+                buf = ensure(ch, buf, 12 + author.length + name.length);
+                putBytes(buf, author);
+                putBytes(buf, name);
+                buf.putInt(points.size());
+                for (Point p : points) {
+                    buf = ensure(ch, buf, 8);
+                    buf.putInt(p.x()).putInt(p.y());
+                }
+            }
+            buf = ensure(ch, buf, 4);
+            buf.putInt(SNAPSHOT_END);
+            drain(ch, buf);
+            ch.force(true);
+        }
+        Files.move(tmp, dir.resolve(SNAPSHOT_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Deletes the segments fully covered by a snapshot.
+     * @param dir Journal directory
+     * @param segment First segment to keep
+     * @throws IOException if a segment cannot be deleted
+     */
+    public static void deleteSegmentsBefore(Path dir, long segment) throws IOException {
+        for (long id : segmentIds(dir)) {
+            if (id < segment) Files.deleteIfExists(segmentPath(dir, id));
+        }
+    }
+
+    private static ByteBuffer ensure(FileChannel ch, ByteBuffer buf, int bytes) throws IOException {
+        if (buf.remaining() >= bytes) return buf;
+        drain(ch, buf);
+        return buf.capacity() >= bytes ? buf : ByteBuffer.allocateDirect(bytes);
+    }
+
+    private static void drain(FileChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) ch.write(buf);
+        buf.clear();
+    }
+
+    private static List<Long> segmentIds(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) return List.of();
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(f -> f.startsWith(SEGMENT_PREFIX) && f.endsWith(SEGMENT_SUFFIX))
+                    .map(f -> Long.parseLong(f.substring(SEGMENT_PREFIX.length(), f.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static Path segmentPath(Path dir, long id) {
+        return dir.resolve(SEGMENT_PREFIX + "%016d".formatted(id) + SEGMENT_SUFFIX);
+    }
+
+    private static String readString(ByteBuffer buf) {
+        return readString(buf, buf.getInt());
+    }
+
+    private static String readString(ByteBuffer buf, int length) {
+        byte[] bytes = new byte[length];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Sequential reader over a file mapped in windows of at most {@link #MAP_WINDOW_BYTES}.
+     */
+    private static final class MappedReader {
+        private final FileChannel ch;
+        private final long size;
+        private long base;
+        private MappedByteBuffer buf;
+
+        MappedReader(FileChannel ch) throws IOException {
+            this.ch = ch;
+            this.size = ch.size();
+            map(0);
+        }
+
+        long position() { return base + buf.position(); }
+
+        long remaining() { return size - position(); }
+
+        int readInt() throws IOException { require(4); return buf.getInt(); }
+
+        long readLong() throws IOException { require(8); return buf.getLong(); }
+
+        String readString() throws IOException {
+            int length = readInt();
+            return BlueprintJournal.readString(slice(length), length);
+        }
+
+        ByteBuffer slice(int length) throws IOException {
+            require(length);
+            ByteBuffer slice = buf.slice(buf.position(), length);
+            buf.position(buf.position() + length);
+            return slice;
+        }
+
+        private void require(int bytes) throws IOException {
+            if (buf.remaining() >= bytes) return;
+            if (remaining() < bytes) throw new IOException("Unexpected end of file");
+            map(position());
+        }
+
+        private void map(long from) throws IOException {
+            base = from;
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, from, Math.min(MAP_WINDOW_BYTES, size - from));
+        }
+    }
+}
@@ -3,6 +3,8 @@ package co.edu.eci.blueprints.persistence;
 /**
  * Exception thrown to indicate that a requested blueprint was not found in the persistence layer.
  * This exception is used when an operation attempts to retrieve a blueprint that does not exist.
+ * It signals an expected outcome rather than a fault, so it is stackless: no stack trace is captured,
+ * which makes it cheap to create and safe to keep and rethrow.
  */
 public class BlueprintNotFoundException extends Exception {
 
@@ -10,5 +12,5 @@ public class BlueprintNotFoundException extends Exception {
      * Constructs a new BlueprintNotFoundException with the specified detail message.
      * @param msg the detail message describing the cause of the exception
      */
-    public BlueprintNotFoundException(String msg) { super(msg); }
+    public BlueprintNotFoundException(String msg) { super(msg, null, false, false); }
 }
@@ -1,6 +1,10 @@
 package co.edu.eci.blueprints.persistence;
 
 import co.edu.eci.blueprints.model.Blueprint;
+import co.edu.eci.blueprints.model.BlueprintSummary;
+import co.edu.eci.blueprints.model.Point;
+import java.io.IOException;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -16,6 +20,23 @@ public interface BlueprintPersistence {
      */
     void saveBlueprint(Blueprint bp) throws BlueprintPersistenceException;
 
+    /**
+     * Saves a new blueprint whose points are read in chunks, such as a large upload.
+     * The default implementation collects the points into the blueprint and saves it as a whole;
+     * implementations that keep points outside the heap write each chunk as it is read.
+     * @param author The author of the blueprint
+     * @param name The name of the blueprint
+     * @param points Source of the points, read until it returns an empty chunk
+     * @throws BlueprintPersistenceException if the blueprint already exists or the points cannot be read
+     */
+    default void saveBlueprint(String author, String name, PointChunks points) throws BlueprintPersistenceException {
+        Blueprint bp = new Blueprint(author, name, List.of());
+        for (List<Point> chunk = points.next(); !chunk.isEmpty(); chunk = points.next()) {
+            chunk.forEach(bp::addPoint);
+        }
+        saveBlueprint(bp);
+    }
+
     /**
      * Retrieves a blueprint by author and name.
      * @param author The author of the blueprint
@@ -25,6 +46,15 @@ public interface BlueprintPersistence {
      */
     Blueprint getBlueprint(String author, String name) throws BlueprintNotFoundException;
 
+    /**
+     * Retrieves the aggregate statistics of a blueprint without loading its points.
+     * @param author The author of the blueprint
+     * @param name The name of the blueprint
+     * @return The blueprint summary
+     * @throws BlueprintNotFoundException if the blueprint is not found
+     */
+    BlueprintSummary getBlueprintSummary(String author, String name) throws BlueprintNotFoundException;
+
     /**
      * Retrieves all blueprints created by a specific author.
      * @param author The author's name
@@ -39,6 +69,34 @@ public interface BlueprintPersistence {
      */
     Set<Blueprint> getAllBlueprints();
 
+    /**
+     * Retrieves the summaries of all blueprints created by a specific author, without loading their points.
+     * @param author The author's name
+     * @return A set of summaries of the author's blueprints
+     * @throws BlueprintNotFoundException if no blueprints are found for the author
+     */
+    Set<BlueprintSummary> getBlueprintSummariesByAuthor(String author) throws BlueprintNotFoundException;
+
+    /**
+     * Retrieves the summaries of all blueprints stored in the persistence layer, without loading their points.
+     * @return A set of summaries of all blueprints
+     */
+    Set<BlueprintSummary> getAllBlueprintSummaries();
+
+    /**
+     * Hands every blueprint to the sink, one at a time, as a backup of the whole dataset.
+     * Implementations export a consistent snapshot without loading the whole dataset; the default
+     * implementation walks {@link #getAllBlueprints()}, so it is only as consistent and compact as that set.
+     * @param sink Receiver of the blueprints
+     * @throws IOException if the sink cannot write a blueprint
+     * @throws BlueprintPersistenceException if the blueprints cannot be read
+     */
+    default void exportBlueprints(BlueprintSink sink) throws IOException, BlueprintPersistenceException {
+        for (Blueprint bp : getAllBlueprints()) {
+            sink.accept(bp.getAuthor(), bp.getName(), PointChunks.of(bp.getPoints(), 1000));
+        }
+    }
+
     /**
      * Adds a new point to the specified blueprint.
      * @param author The author of the blueprint
@@ -46,6 +104,7 @@ public interface BlueprintPersistence {
      * @param x The x-coordinate of the new point
      * @param y The y-coordinate of the new point
      * @throws BlueprintNotFoundException if the blueprint is not found
+     * @throws BlueprintPersistenceException if the point could not be stored; it is not added
      */
-    void addPoint(String author, String name, int x, int y) throws BlueprintNotFoundException;
+    void addPoint(String author, String name, int x, int y) throws BlueprintNotFoundException, BlueprintPersistenceException;
 }
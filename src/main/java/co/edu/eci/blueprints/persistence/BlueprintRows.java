@@ -0,0 +1,74 @@
+package co.edu.eci.blueprints.persistence;
+
+import co.edu.eci.blueprints.model.BlueprintStats;
+import co.edu.eci.blueprints.model.Point;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Statements that write the rows of a blueprint without loading it into the persistence context,
+ * shared by the PostgreSQL and write-behind persistence.
+ */
+final class BlueprintRows {
+
+    private BlueprintRows() {}
+
+    /**
+     * Builds an update that writes the statistics columns of one blueprint.
+     * @param entityManager Entity manager of the current transaction
+     * @param id Blueprint id
+     * @param stats Statistics to write
+     * @param version Version the blueprint must still have, which the update then increments; null for any
+     * @return The update, ready to execute
+     */
+    static Query statsUpdate(EntityManager entityManager, long id, BlueprintStats stats, Long version) {
+        String where = version == null
+            ? " WHERE b.id = :id"
+            : ", b.version = b.version + 1 WHERE b.id = :id AND b.version = :version";
+        Query update = entityManager.createQuery("UPDATE Blueprint b SET b.stats.pointCount = :pointCount, "
+                + "b.stats.minX = :minX, b.stats.minY = :minY, b.stats.maxX = :maxX, b.stats.maxY = :maxY, "
+                + "b.stats.sumX = :sumX, b.stats.sumY = :sumY, b.stats.lastX = :lastX, b.stats.lastY = :lastY, "
+                + "b.stats.pathLength = :pathLength" + where)
+            .setParameter("pointCount", stats.getPointCount())
+            .setParameter("minX", stats.getMinX())
+            .setParameter("minY", stats.getMinY())
+            .setParameter("maxX", stats.getMaxX())
+            .setParameter("maxY", stats.getMaxY())
+            .setParameter("sumX", stats.getSumX())
+            .setParameter("sumY", stats.getSumY())
+            .setParameter("lastX", stats.getLastX())
+            .setParameter("lastY", stats.getLastY())
+            .setParameter("pathLength", stats.getPathLength())
+            .setParameter("id", id);
+        if (version != null) update.setParameter("version", version);
+        return update;
+    }
+
+    /**
+     * Inserts points of a blueprint with one JDBC batch.
+     * @param connection Connection of the current transaction
+     * @param id Blueprint id
+     * @param first Order of the first point
+     * @param chunk Points to insert, in order
+     * @throws SQLException if the batch fails
+     */
+    static void insertPoints(Connection connection, long id, int first, List<Point> chunk) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO blueprint_points (blueprint_id, point_order, x, y) VALUES (?, ?, ?, ?)")) {
+            int order = first;
+            for (Point p : chunk) {
+                insert.setLong(1, id);
+                insert.setInt(2, order++);
+                insert.setInt(3, p.x());
+                insert.setInt(4, p.y());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+}
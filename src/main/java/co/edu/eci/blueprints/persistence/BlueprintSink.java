@@ -0,0 +1,20 @@
+package co.edu.eci.blueprints.persistence;
+
+import java.io.IOException;
+
+/**
+ * Receives the blueprints of an export one at a time, so the whole dataset is never held in memory.
+ */
+@FunctionalInterface
+public interface BlueprintSink {
+
+    /**
+     * Receives one blueprint. Its points are only readable until this call returns.
+     * @param author The author of the blueprint
+     * @param name The name of the blueprint
+     * @param points The points of the blueprint, in chunks
+     * @throws IOException if the blueprint cannot be written
+     * @throws BlueprintPersistenceException if the points cannot be read
+     */
+    void accept(String author, String name, PointChunks points) throws IOException, BlueprintPersistenceException;
+}
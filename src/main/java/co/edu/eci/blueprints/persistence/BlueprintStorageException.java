@@ -0,0 +1,14 @@
+package co.edu.eci.blueprints.persistence;
+
+/**
+ * Exception thrown when a change could not be made durable, such as a journal that failed to write or force
+ * its records. The change is not applied.
+ */
+public class BlueprintStorageException extends BlueprintPersistenceException {
+
+    /**
+     * Constructs a new BlueprintStorageException with the specified detail message.
+     * @param msg the detail message describing the storage failure
+     */
+    public BlueprintStorageException(String msg) { super(msg); }
+}
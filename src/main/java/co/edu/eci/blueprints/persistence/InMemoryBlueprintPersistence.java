@@ -1,30 +1,104 @@
 package co.edu.eci.blueprints.persistence;
 
 import co.edu.eci.blueprints.model.Blueprint;
+import co.edu.eci.blueprints.model.BlueprintSummary;
 import co.edu.eci.blueprints.model.Point;
+import co.edu.eci.blueprints.persistence.BlueprintJournal.SnapshotEntry;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-@Repository
 /**
  * In-memory implementation of the BlueprintPersistence interface.
- * Stores blueprints in a thread-safe map and provides methods to manage them.
+ * Stores blueprints in thread-safe maps and provides methods to manage them.
  * This implementation is mainly for testing or demonstration purposes and does not persist data across application restarts.
+ * <p>
+ * Blueprints are split into shards by a hash of their author, so all the blueprints of an author live in one shard,
+ * which indexes them by author as well as by key. Each shard has its own snapshot lock, so threads changing
+ * different shards do not contend on it and an export pauses one shard at a time. Listings of every blueprint
+ * gather the shards in parallel once the store is large enough to repay it.
+ * Profile: "memory"
  */
+@Primary
+@Repository
+@Profile("memory")
 public class InMemoryBlueprintPersistence implements BlueprintPersistence {
 
     /**
-     * Thread-safe map storing blueprints using a composite key of author and name.
+     * Blueprints of the authors hashed to one shard, and the lock that lets a snapshot pause their changes.
      */
-    private final Map<String, Blueprint> blueprints = new ConcurrentHashMap<>();
+    private static final class Shard {
+
+        /**
+         * Blueprints by composite key of author and name.
+         */
+        final Map<String, Blueprint> blueprints = new ConcurrentHashMap<>();
+
+        /**
+         * Blueprints by author.
+         */
+        final Map<String, Set<Blueprint>> byAuthor = new ConcurrentHashMap<>();
+
+        /**
+         * Changes hold the read lock; a snapshot holds the write lock only to record the point counts.
+         */
+        final ReentrantReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Shards used by default: four per processor, rounded up to a power of two, so threads rarely meet on a lock.
+     */
+    public static final int DEFAULT_SHARDS =
+            Integer.highestOneBit(4 * Runtime.getRuntime().availableProcessors() - 1) << 1;
+
+    /**
+     * Blueprints below which listings walk the shards on the calling thread; forking costs more than it saves.
+     */
+    private static final int PARALLEL_SCAN_THRESHOLD = 4096;
+
+    private final Shard[] shards;
+    private final int shardMask;
+
+    /**
+     * Points copied per chunk while an export holds a blueprint's monitor.
+     */
+    private static final int EXPORT_CHUNK = 1000;
 
     /**
      * Initializes the in-memory persistence with some sample blueprints for demonstration.
      */
     public InMemoryBlueprintPersistence() {
+        this(true, DEFAULT_SHARDS);
+    }
+
+    /**
+     * Initializes the in-memory persistence, optionally with the sample blueprints.
+     * Used by persistence layers that load their own data into an empty store.
+     * @param withSampleData Whether to add the sample blueprints
+     */
+    InMemoryBlueprintPersistence(boolean withSampleData) {
+        this(withSampleData, DEFAULT_SHARDS);
+    }
+
+    /**
+     * Initializes the in-memory persistence with a given number of shards.
+     * @param withSampleData Whether to add the sample blueprints
+     * @param shards Number of shards, rounded up to a power of two; 1 keeps every blueprint behind one lock
+     */
+    public InMemoryBlueprintPersistence(boolean withSampleData, int shards) {
+        int count = shards <= 1 ? 1 : Integer.highestOneBit(shards - 1) << 1;
+        this.shards = new Shard[count];
+        for (int i = 0; i < count; i++) this.shards[i] = new Shard();
+        this.shardMask = count - 1;
+        if (!withSampleData) return;
         // Sample data 1:1 style (author/name key)
         Blueprint bp1 = new Blueprint("john", "house",
                 List.of(new Point(0,0), new Point(10,0), new Point(10,10), new Point(0,10)));
@@ -32,9 +106,9 @@ public class InMemoryBlueprintPersistence implements BlueprintPersistence {
                 List.of(new Point(5,5), new Point(15,5), new Point(15,15)));
         Blueprint bp3 = new Blueprint("jane", "garden",
                 List.of(new Point(2,2), new Point(3,4), new Point(6,7)));
-        blueprints.put(keyOf(bp1), bp1);
-        blueprints.put(keyOf(bp2), bp2);
-        blueprints.put(keyOf(bp3), bp3);
+        put(shardOf(bp1.getAuthor()), bp1);
+        put(shardOf(bp2.getAuthor()), bp2);
+        put(shardOf(bp3.getAuthor()), bp3);
     }
 
     /**
@@ -52,6 +126,44 @@ public class InMemoryBlueprintPersistence implements BlueprintPersistence {
      */
     private String keyOf(String author, String name) { return author + ":" + name; }
 
+    /**
+     * Finds the shard of an author, spreading the high bits of the hash as {@link HashMap} does.
+     * @param author The author's name
+     * @return The shard holding the author's blueprints
+     */
+    private Shard shardOf(String author) {
+        int h = author.hashCode();
+        return shards[(h ^ (h >>> 16)) & shardMask];
+    }
+
+    /**
+     * Adds a blueprint to a shard unless its key is taken.
+     * @return true if the blueprint was added
+     */
+    private boolean put(Shard shard, Blueprint bp) {
+        if (shard.blueprints.putIfAbsent(keyOf(bp), bp) != null) return false;
+        shard.byAuthor.computeIfAbsent(bp.getAuthor(), a -> ConcurrentHashMap.newKeySet()).add(bp);
+        return true;
+    }
+
+    /**
+     * Counts the blueprints in every shard.
+     */
+    private int size() {
+        int size = 0;
+        for (Shard shard : shards) size += shard.blueprints.size();
+        return size;
+    }
+
+    /**
+     * Streams the shards, in parallel when the store is large and the common pool has more than one thread.
+     */
+    private Stream<Shard> shards() {
+        Stream<Shard> stream = Arrays.stream(shards);
+        boolean parallel = ForkJoinPool.getCommonPoolParallelism() > 1 && size() >= PARALLEL_SCAN_THRESHOLD;
+        return parallel ? stream.parallel() : stream;
+    }
+
     /**
      * Saves a new blueprint to the in-memory store.
      * @param bp The blueprint to save
@@ -59,9 +171,13 @@ public class InMemoryBlueprintPersistence implements BlueprintPersistence {
      */
     @Override
     public void saveBlueprint(Blueprint bp) throws BlueprintPersistenceException {
-        String k = keyOf(bp);
-        if (blueprints.containsKey(k)) throw new BlueprintPersistenceException("Blueprint already exists: " + k);
-        blueprints.put(k, bp);
+        Shard shard = shardOf(bp.getAuthor());
+        shard.snapshotLock.readLock().lock();
+        try {
+            if (!put(shard, bp)) throw new BlueprintPersistenceException("Blueprint already exists: " + keyOf(bp));
+        } finally {
+            shard.snapshotLock.readLock().unlock();
+        }
     }
 
     /**
@@ -73,33 +189,76 @@ public class InMemoryBlueprintPersistence implements BlueprintPersistence {
      */
     @Override
     public Blueprint getBlueprint(String author, String name) throws BlueprintNotFoundException {
-        Blueprint bp = blueprints.get(keyOf(author, name));
+        Blueprint bp = shardOf(author).blueprints.get(keyOf(author, name));
         if (bp == null) throw new BlueprintNotFoundException("Blueprint not found: %s/%s".formatted(author, name));
         return bp;
     }
 
     /**
-     * Retrieves all blueprints created by a specific author.
+     * Retrieves the summary of a blueprint from its incrementally maintained statistics, read under the
+     * blueprint's monitor so that a concurrent append is never seen half applied.
+     * @param author The author of the blueprint
+     * @param name The name of the blueprint
+     * @return The blueprint summary
+     * @throws BlueprintNotFoundException if the blueprint is not found
+     */
+    @Override
+    public BlueprintSummary getBlueprintSummary(String author, String name) throws BlueprintNotFoundException {
+        return summaryOf(getBlueprint(author, name));
+    }
+
+    /**
+     * Retrieves all blueprints created by a specific author from the author index of their shard.
      * @param author The author's name
      * @return A set of blueprints by the author
      * @throws BlueprintNotFoundException if no blueprints are found for the author
      */
     @Override
     public Set<Blueprint> getBlueprintsByAuthor(String author) throws BlueprintNotFoundException {
-        Set<Blueprint> set = blueprints.values().stream()
-                .filter(bp -> bp.getAuthor().equals(author))
-                .collect(Collectors.toSet());
-        if (set.isEmpty()) throw new BlueprintNotFoundException("No blueprints for author: " + author);
-        return set;
+        Set<Blueprint> indexed = shardOf(author).byAuthor.get(author);
+        if (indexed == null || indexed.isEmpty()) throw new BlueprintNotFoundException("No blueprints for author: " + author);
+        return new HashSet<>(indexed);
     }
 
     /**
-     * Retrieves all blueprints stored in memory.
+     * Retrieves all blueprints stored in memory, gathering the shards in parallel when the store is large.
      * @return A set of all blueprints
      */
     @Override
     public Set<Blueprint> getAllBlueprints() {
-        return new HashSet<>(blueprints.values());
+        return shards().flatMap(shard -> shard.blueprints.values().stream()).collect(Collectors.toSet());
+    }
+
+    /**
+     * Retrieves the summaries of all blueprints created by a specific author.
+     * @param author The author's name
+     * @return A set of summaries of the author's blueprints
+     * @throws BlueprintNotFoundException if no blueprints are found for the author
+     */
+    @Override
+    public Set<BlueprintSummary> getBlueprintSummariesByAuthor(String author) throws BlueprintNotFoundException {
+        return getBlueprintsByAuthor(author).stream().map(InMemoryBlueprintPersistence::summaryOf).collect(Collectors.toSet());
+    }
+
+    /**
+     * Retrieves the summaries of all blueprints stored in memory, computed in parallel across shards when
+     * the store is large.
+     * @return A set of summaries of all blueprints
+     */
+    @Override
+    public Set<BlueprintSummary> getAllBlueprintSummaries() {
+        return shards().flatMap(shard -> shard.blueprints.values().stream())
+                .map(InMemoryBlueprintPersistence::summaryOf)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Reads the statistics of a blueprint under the monitor its appends hold.
+     */
+    private static BlueprintSummary summaryOf(Blueprint bp) {
+        synchronized (bp) {
+            return bp.summary();
+        }
     }
 
     /**
@@ -113,6 +272,72 @@ public class InMemoryBlueprintPersistence implements BlueprintPersistence {
     @Override
     public void addPoint(String author, String name, int x, int y) throws BlueprintNotFoundException {
         Blueprint bp = getBlueprint(author, name);
-        bp.addPoint(new Point(x, y));
+        Shard shard = shardOf(author);
+        shard.snapshotLock.readLock().lock();
+        try {
+            synchronized (bp) {
+                bp.addPoint(new Point(x, y));
+            }
+        } finally {
+            shard.snapshotLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Exports the blueprints, pausing the changes of one shard at a time while its point counts are recorded;
+     * the points are then copied one chunk at a time, so the export needs no copy of the dataset and points
+     * appended meanwhile are left out. Each shard, and so each author, is exported as it was at one instant,
+     * though not the same instant for every shard.
+     * @param sink Receiver of the blueprints
+     * @throws IOException if the sink cannot write a blueprint
+     * @throws BlueprintPersistenceException if the sink rejects a blueprint
+     */
+    @Override
+    public void exportBlueprints(BlueprintSink sink) throws IOException, BlueprintPersistenceException {
+        List<SnapshotEntry> entries = new ArrayList<>(size());
+        for (Shard shard : shards) {
+            shard.snapshotLock.writeLock().lock();
+            try {
+                entries.addAll(snapshotEntries(shard));
+            } finally {
+                shard.snapshotLock.writeLock().unlock();
+            }
+        }
+        export(entries, sink);
+    }
+
+    /**
+     * Records every blueprint with its current point count, walking the shards in parallel when the store is
+     * large. The caller must keep changes out while it runs.
+     * @return One entry per blueprint
+     */
+    List<SnapshotEntry> snapshotEntries() {
+        return shards().map(InMemoryBlueprintPersistence::snapshotEntries).flatMap(List::stream).toList();
+    }
+
+    private static List<SnapshotEntry> snapshotEntries(Shard shard) {
+        List<SnapshotEntry> entries = new ArrayList<>(shard.blueprints.size());
+        for (Blueprint bp : shard.blueprints.values()) entries.add(new SnapshotEntry(bp, bp.getPoints().size()));
+        return entries;
+    }
+
+    /**
+     * Hands the recorded prefix of each blueprint to the sink, copying one chunk at a time under the
+     * blueprint's monitor so that concurrent appends are never blocked for long.
+     * @param entries Blueprints and the point counts recorded for them
+     * @param sink Receiver of the blueprints
+     */
+    static void export(List<SnapshotEntry> entries, BlueprintSink sink) throws IOException, BlueprintPersistenceException {
+        for (SnapshotEntry entry : entries) {
+            Blueprint bp = entry.blueprint();
+            int[] next = {0};
+            sink.accept(bp.getAuthor(), bp.getName(), () -> {
+                int from = next[0];
+                next[0] = Math.min(entry.pointCount(), from + EXPORT_CHUNK);
+                synchronized (bp) {
+                    return new ArrayList<>(bp.getPoints().subList(from, next[0]));
+                }
+            });
+        }
     }
 }
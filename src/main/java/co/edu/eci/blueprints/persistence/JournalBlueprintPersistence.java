@@ -0,0 +1,354 @@
+package co.edu.eci.blueprints.persistence;
+
+import co.edu.eci.blueprints.model.Blueprint;
+import co.edu.eci.blueprints.model.BlueprintSummary;
+import co.edu.eci.blueprints.model.Point;
+import co.edu.eci.blueprints.persistence.BlueprintJournal.FsyncPolicy;
+import co.edu.eci.blueprints.persistence.BlueprintJournal.SnapshotEntry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * File-backed implementation of BlueprintPersistence for deployments without PostgreSQL.
+ * Blueprints are served from memory; every change is appended to a {@link BlueprintJournal} before it is
+ * acknowledged, and a compact snapshot is written periodically so that startup replays only the recent journal.
+ * A change is applied in memory only once its record is durable, and changes are applied in the order of their
+ * journal records, so readers never see a change that could still be lost and memory always matches the state
+ * that a replay of the journal would rebuild.
+ * Profile: "journal"
+ */
+@Primary
+@Repository
+@Profile("journal")
+public class JournalBlueprintPersistence implements BlueprintPersistence {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalBlueprintPersistence.class);
+
+    private final InMemoryBlueprintPersistence memory = new InMemoryBlueprintPersistence(false);
+
+    /**
+     * Changes hold the read lock from their journal append until they are applied in memory, or given up;
+     * a snapshot holds the write lock only to roll the journal and record the point counts.
+     */
+    private final ReentrantReadWriteLock cutLock = new ReentrantReadWriteLock();
+
+    /**
+     * Keys of the blueprints being saved, claimed before their record is appended so that a key is journaled
+     * only once, while the blueprint is not yet in memory.
+     */
+    private final Map<String, Blueprint> saving = new ConcurrentHashMap<>();
+
+    /**
+     * Journal sequence number of the last change applied in memory or given up.
+     */
+    private long appliedSeq;
+    private final Object applyOrder = new Object();
+
+    private final Path dir;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalMs;
+    private final long segmentMaxBytes;
+    private final long snapshotIntervalSeconds;
+    private final long snapshotMinBytes;
+
+    private BlueprintJournal journal;
+    private ScheduledExecutorService snapshotter;
+    private volatile long bytesAtLastSnapshot;
+
+    /**
+     * Constructs the journal persistence.
+     * @param dir Directory for the journal segments and the snapshot
+     * @param fsyncPolicy When journal records are forced to disk
+     * @param fsyncIntervalMs Interval between forces with the INTERVAL policy
+     * @param segmentMaxBytes Size after which a new journal segment is started
+     * @param snapshotIntervalSeconds Interval between snapshot checks
+     * @param snapshotMinBytes Journal bytes written since the last snapshot that trigger a new one
+     */
+    public JournalBlueprintPersistence(@Value("${blueprints.persistence.journal.dir:./data/journal}") Path dir,
+                                       @Value("${blueprints.persistence.journal.fsync:ALWAYS}") FsyncPolicy fsyncPolicy,
+                                       @Value("${blueprints.persistence.journal.fsync-interval-ms:50}") long fsyncIntervalMs,
+                                       @Value("${blueprints.persistence.journal.segment-max-bytes:268435456}") long segmentMaxBytes,
+                                       @Value("${blueprints.persistence.journal.snapshot-interval-seconds:300}") long snapshotIntervalSeconds,
+                                       @Value("${blueprints.persistence.journal.snapshot-min-bytes:67108864}") long snapshotMinBytes) {
+        this.dir = dir;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalMs = fsyncIntervalMs;
+        this.segmentMaxBytes = segmentMaxBytes;
+        this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+        this.snapshotMinBytes = snapshotMinBytes;
+    }
+
+    /**
+     * Rebuilds the in-memory state from the snapshot and the newer journal segments, then opens the journal.
+     * @throws IOException if the snapshot or the journal cannot be read
+     */
+    @PostConstruct
+    void recover() throws IOException {
+        long start = System.nanoTime();
+        BlueprintJournal.Visitor replay = new BlueprintJournal.Visitor() {
+            @Override
+            public void onSave(String author, String name, List<Point> points) throws IOException {
+                try {
+                    memory.saveBlueprint(new Blueprint(author, name, points));
+                } catch (BlueprintPersistenceException e) {
+                    throw new IOException("Journal saves a blueprint twice: " + e.getMessage());
+                }
+            }
+
+            @Override
+            public void onPoint(String author, String name, int x, int y) throws IOException {
+                try {
+                    memory.addPoint(author, name, x, y);
+                } catch (BlueprintNotFoundException e) {
+                    throw new IOException("Journal adds a point to a blueprint it never saved: " + e.getMessage());
+                }
+            }
+        };
+        long fromSegment = BlueprintJournal.readSnapshot(dir, replay);
+        long nextSegment = BlueprintJournal.replay(dir, fromSegment, replay);
+        journal = new BlueprintJournal(dir, nextSegment, fsyncPolicy, fsyncIntervalMs, segmentMaxBytes);
+        log.info("Recovered {} blueprints from {} in {} ms", memory.getAllBlueprints().size(), dir,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        snapshotter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "blueprints-snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+        snapshotter.scheduleWithFixedDelay(this::snapshotIfNeeded,
+                snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Writes a final snapshot and closes the journal.
+     * @throws IOException if the snapshot or the journal cannot be written
+     */
+    @PreDestroy
+    void shutdown() throws IOException {
+        snapshotter.shutdownNow();
+        snapshot();
+        journal.close();
+    }
+
+    /**
+     * Journals a blueprint and, once the record is durable, saves it in memory. Its key is claimed first,
+     * so a concurrent save of the same key is rejected before anything is journaled.
+     * @throws BlueprintStorageException if the blueprint could not be journaled
+     */
+    @Override
+    public void saveBlueprint(Blueprint bp) throws BlueprintPersistenceException {
+        String key = bp.getAuthor() + ":" + bp.getName();
+        if (saving.putIfAbsent(key, bp) != null) throw new BlueprintPersistenceException("Blueprint already exists: " + key);
+        try {
+            // Checked after claiming the key: a save that completes meanwhile is in memory before it releases it
+            if (exists(bp.getAuthor(), bp.getName())) {
+                throw new BlueprintPersistenceException("Blueprint already exists: " + key);
+            }
+            cutLock.readLock().lock();
+            try {
+                long seq;
+                try {
+                    seq = journal.appendSave(bp);
+                } catch (UncheckedIOException | IllegalStateException e) {
+                    throw storageFailure("blueprint", bp.getAuthor(), bp.getName(), e);
+                }
+                applyWhenDurable(seq, "blueprint", bp.getAuthor(), bp.getName(), () -> memory.saveBlueprint(bp));
+            } finally {
+                cutLock.readLock().unlock();
+            }
+        } finally {
+            saving.remove(key, bp);
+        }
+    }
+
+    private boolean exists(String author, String name) {
+        try {
+            memory.getBlueprint(author, name);
+            return true;
+        } catch (BlueprintNotFoundException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public Blueprint getBlueprint(String author, String name) throws BlueprintNotFoundException {
+        return memory.getBlueprint(author, name);
+    }
+
+    @Override
+    public BlueprintSummary getBlueprintSummary(String author, String name) throws BlueprintNotFoundException {
+        return memory.getBlueprintSummary(author, name);
+    }
+
+    @Override
+    public Set<Blueprint> getBlueprintsByAuthor(String author) throws BlueprintNotFoundException {
+        return memory.getBlueprintsByAuthor(author);
+    }
+
+    @Override
+    public Set<Blueprint> getAllBlueprints() {
+        return memory.getAllBlueprints();
+    }
+
+    @Override
+    public Set<BlueprintSummary> getBlueprintSummariesByAuthor(String author) throws BlueprintNotFoundException {
+        return memory.getBlueprintSummariesByAuthor(author);
+    }
+
+    @Override
+    public Set<BlueprintSummary> getAllBlueprintSummaries() {
+        return memory.getAllBlueprintSummaries();
+    }
+
+    /**
+     * Journals a point and, once the record is durable, adds it in memory.
+     * @throws BlueprintStorageException if the point could not be journaled
+     */
+    @Override
+    public void addPoint(String author, String name, int x, int y)
+            throws BlueprintNotFoundException, BlueprintStorageException {
+        Blueprint bp = memory.getBlueprint(author, name);
+        cutLock.readLock().lock();
+        try {
+            long seq;
+            try {
+                seq = journal.appendPoint(author, name, x, y);
+            } catch (UncheckedIOException | IllegalStateException e) {
+                throw storageFailure("point", author, name, e);
+            }
+            applyWhenDurable(seq, "point", author, name, () -> {
+                synchronized (bp) {
+                    bp.addPoint(new Point(x, y));
+                }
+            });
+        } finally {
+            cutLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * A change to apply in memory once its journal record is durable.
+     */
+    @FunctionalInterface
+    private interface Change<E extends Exception> {
+        void apply() throws E;
+    }
+
+    /**
+     * Waits until a journaled change is durable, then applies it in memory after every change journaled
+     * before it. A change that could not be made durable is not applied, but still takes its turn so the
+     * later ones are not held back; since a journal failure is permanent, those fail as well.
+     * @param seq Sequence number of the change's journal record
+     * @throws BlueprintStorageException if the record could not be made durable
+     */
+    private <E extends Exception> void applyWhenDurable(long seq, String what, String author, String name,
+                                                        Change<E> change) throws E, BlueprintStorageException {
+        IOException failure = null;
+        try {
+            journal.sync(seq);
+        } catch (IOException e) {
+            failure = e;
+        }
+        awaitTurn(seq);
+        try {
+            if (failure == null) change.apply();
+        } finally {
+            endTurn(seq);
+        }
+        if (failure != null) throw storageFailure(what, author, name, failure);
+    }
+
+    private void awaitTurn(long seq) {
+        boolean interrupted = false;
+        synchronized (applyOrder) {
+            while (appliedSeq != seq - 1) {
+                try {
+                    applyOrder.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    private void endTurn(long seq) {
+        synchronized (applyOrder) {
+            appliedSeq = seq;
+            applyOrder.notifyAll();
+        }
+    }
+
+    private static BlueprintStorageException storageFailure(String what, String author, String name, Exception e) {
+        log.error("Error journaling {} of {}/{}: {}", what, author, name, e.getMessage());
+        return new BlueprintStorageException("Error journaling %s of %s/%s, the change was not applied"
+                .formatted(what, author, name));
+    }
+
+    private void snapshotIfNeeded() {
+        if (journal.bytesWritten() - bytesAtLastSnapshot < snapshotMinBytes) return;
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            log.error("Snapshot failed, journal segments are kept: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Exports the blueprints as they were at one instant: changes are paused, as for a snapshot,
+     * only while the point counts are recorded.
+     */
+    @Override
+    public void exportBlueprints(BlueprintSink sink) throws IOException, BlueprintPersistenceException {
+        List<SnapshotEntry> entries;
+        cutLock.writeLock().lock();
+        try {
+            entries = memory.snapshotEntries();
+        } finally {
+            cutLock.writeLock().unlock();
+        }
+        InMemoryBlueprintPersistence.export(entries, sink);
+    }
+
+    /**
+     * Writes a snapshot of the current state and deletes the journal segments it covers.
+     * Changes are paused only while the journal is rolled and the point counts are recorded.
+     * @throws IOException if the snapshot cannot be written
+     */
+    synchronized void snapshot() throws IOException {
+        long start = System.nanoTime();
+        long bytes = journal.bytesWritten();
+        long nextSegment;
+        List<SnapshotEntry> entries;
+        cutLock.writeLock().lock();
+        try {
+            nextSegment = journal.rollSegment();
+            entries = memory.snapshotEntries();
+        } finally {
+            cutLock.writeLock().unlock();
+        }
+        BlueprintJournal.writeSnapshot(dir, nextSegment, entries);
+        BlueprintJournal.deleteSegmentsBefore(dir, nextSegment);
+        bytesAtLastSnapshot = bytes;
+        log.info("Snapshot of {} blueprints written in {} ms", entries.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+}
@@ -0,0 +1,84 @@
+package co.edu.eci.blueprints.persistence;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Change bus of a single instance: changes are delivered to the listeners of this instance only.
+ * The persistence profiles without PostgreSQL keep their data in the instance, so no change can be made
+ * elsewhere and the bus is always connected.
+ * Profiles: "write-behind", "journal", "offheap", "memory"
+ */
+@Component
+@Profile("write-behind | journal | offheap | memory")
+public class LocalChangeBus implements BlueprintChangeBus {
+
+    /**
+     * Listeners, and the state of the channel they were last told about. Guarded by {@link #listeners}
+     * so a listener never sees the resets out of order.
+     */
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean connected;
+
+    /**
+     * Constructs a bus that is always connected.
+     */
+    public LocalChangeBus() {
+        this(true);
+    }
+
+    /**
+     * Constructs a bus in the given state.
+     * @param connected Whether changes made elsewhere are delivered
+     */
+    protected LocalChangeBus(boolean connected) {
+        this.connected = connected;
+    }
+
+    @Override
+    public void publish(String key) {
+        deliver(Set.of(key));
+    }
+
+    @Override
+    public void publishAll() {
+        setConnected(connected);
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        synchronized (listeners) {
+            listeners.add(listener);
+            listener.reset(connected);
+        }
+    }
+
+    /**
+     * Tells whether changes made elsewhere are delivered.
+     * @return The state of the channel
+     */
+    protected boolean isConnected() { return connected; }
+
+    /**
+     * Hands changed keys to every listener.
+     * @param keys Blueprint keys, "author:name"
+     */
+    protected void deliver(Set<String> keys) {
+        for (Listener listener : listeners) listener.changed(keys);
+    }
+
+    /**
+     * Records the state of the channel and resets every listener with it.
+     * @param connected Whether changes made elsewhere are delivered from now on
+     */
+    protected void setConnected(boolean connected) {
+        synchronized (listeners) {
+            this.connected = connected;
+            for (Listener listener : listeners) listener.reset(connected);
+        }
+    }
+}
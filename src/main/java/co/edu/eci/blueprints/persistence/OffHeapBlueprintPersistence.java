@@ -0,0 +1,272 @@
+package co.edu.eci.blueprints.persistence;
+
+import co.edu.eci.blueprints.model.Blueprint;
+import co.edu.eci.blueprints.model.BlueprintStats;
+import co.edu.eci.blueprints.model.BlueprintSummary;
+import co.edu.eci.blueprints.model.Point;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory implementation of BlueprintPersistence that keeps the points outside the garbage-collected heap.
+ * Each blueprint stores its coordinates in direct {@link ByteBuffer} chunks; only a small header per blueprint
+ * lives on the heap, so very large datasets do not lengthen GC pauses. The first, growing chunk of every
+ * blueprint is carved from shared slabs, so a small blueprint does not cost a direct allocation of its own.
+ * Blueprints are also indexed by author, so listing an author's blueprints does not scan the others.
+ * {@link #getBlueprint} returns a read-only view over the stored chunks instead of copying the points.
+ * Direct memory is limited by {@code -XX:MaxDirectMemorySize}.
+ * Profile: "offheap"
+ */
+@Primary
+@Repository
+@Profile("offheap")
+public class OffHeapBlueprintPersistence implements BlueprintPersistence {
+
+    private final Map<String, Entry> blueprints = new ConcurrentHashMap<>();
+    private final Map<String, Set<Entry>> byAuthor = new ConcurrentHashMap<>();
+    private final AtomicLong offHeapBytes = new AtomicLong();
+    private final Slabs slabs = new Slabs(offHeapBytes);
+
+    private String keyOf(String author, String name) { return author + ":" + name; }
+
+    @Override
+    public void saveBlueprint(Blueprint bp) throws BlueprintPersistenceException {
+        String k = keyOf(bp.getAuthor(), bp.getName());
+        Entry entry = new Entry(bp.getAuthor(), bp.getName(), slabs);
+        synchronized (entry) {
+            if (blueprints.putIfAbsent(k, entry) != null) {
+                throw new BlueprintPersistenceException("Blueprint already exists: " + k);
+            }
+            index(entry);
+            for (Point p : bp.getPoints()) entry.add(p.x(), p.y());
+        }
+    }
+
+    /**
+     * Writes each chunk straight into direct memory, so the upload is never held on the heap.
+     * The blueprint is published once all its points are written; readers never see it partially loaded.
+     */
+    @Override
+    public void saveBlueprint(String author, String name, PointChunks points) throws BlueprintPersistenceException {
+        String k = keyOf(author, name);
+        if (blueprints.containsKey(k)) throw new BlueprintPersistenceException("Blueprint already exists: " + k);
+        Entry entry = new Entry(author, name, slabs);
+        try {
+            for (List<Point> chunk = points.next(); !chunk.isEmpty(); chunk = points.next()) {
+                for (Point p : chunk) entry.add(p.x(), p.y());
+            }
+            if (blueprints.putIfAbsent(k, entry) != null) {
+                throw new BlueprintPersistenceException("Blueprint already exists: " + k);
+            }
+            index(entry);
+        } catch (BlueprintPersistenceException e) {
+            entry.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Blueprint getBlueprint(String author, String name) throws BlueprintNotFoundException {
+        return entry(author, name).view();
+    }
+
+    @Override
+    public BlueprintSummary getBlueprintSummary(String author, String name) throws BlueprintNotFoundException {
+        return entry(author, name).summary();
+    }
+
+    @Override
+    public Set<Blueprint> getBlueprintsByAuthor(String author) throws BlueprintNotFoundException {
+        Set<Blueprint> set = new HashSet<>();
+        for (Entry e : entriesOf(author)) set.add(e.view());
+        return set;
+    }
+
+    @Override
+    public Set<Blueprint> getAllBlueprints() {
+        Set<Blueprint> set = new HashSet<>();
+        for (Entry e : blueprints.values()) set.add(e.view());
+        return set;
+    }
+
+    @Override
+    public Set<BlueprintSummary> getBlueprintSummariesByAuthor(String author) throws BlueprintNotFoundException {
+        Set<BlueprintSummary> set = new HashSet<>();
+        for (Entry e : entriesOf(author)) set.add(e.summary());
+        return set;
+    }
+
+    @Override
+    public Set<BlueprintSummary> getAllBlueprintSummaries() {
+        return blueprints.values().stream().map(Entry::summary).collect(Collectors.toSet());
+    }
+
+    @Override
+    public void addPoint(String author, String name, int x, int y) throws BlueprintNotFoundException {
+        Entry entry = entry(author, name);
+        synchronized (entry) {
+            entry.add(x, y);
+        }
+    }
+
+    /**
+     * Gets the number of bytes of direct memory allocated for points.
+     * @return Allocated off-heap bytes
+     */
+    public long offHeapBytes() { return offHeapBytes.get(); }
+
+    private void index(Entry entry) {
+        byAuthor.computeIfAbsent(entry.author, a -> ConcurrentHashMap.newKeySet()).add(entry);
+    }
+
+    private Set<Entry> entriesOf(String author) throws BlueprintNotFoundException {
+        Set<Entry> indexed = byAuthor.get(author);
+        if (indexed == null || indexed.isEmpty()) throw new BlueprintNotFoundException("No blueprints for author: " + author);
+        return indexed;
+    }
+
+    private Entry entry(String author, String name) throws BlueprintNotFoundException {
+        Entry entry = blueprints.get(keyOf(author, name));
+        if (entry == null) throw new BlueprintNotFoundException("Blueprint not found: %s/%s".formatted(author, name));
+        return entry;
+    }
+
+    /**
+     * Points of one blueprint in direct memory, as x/y int pairs in fixed-size chunks.
+     * The first chunk starts small and doubles until it reaches the chunk size, so small blueprints stay small;
+     * until then it lives in a slab, and full chunks are allocated on their own.
+     * Appends are serialized by locking the entry; views read the published size and chunks without locking,
+     * since stored points are never modified.
+     */
+    private static final class Entry {
+        static final int CHUNK_SHIFT = 13;
+        static final int CHUNK_POINTS = 1 << CHUNK_SHIFT;
+        static final int CHUNK_MASK = CHUNK_POINTS - 1;
+        static final int INITIAL_POINTS = 16;
+
+        final String author;
+        final String name;
+        final Slabs slabs;
+        final BlueprintStats stats = new BlueprintStats();
+        volatile ByteBuffer[] chunks = new ByteBuffer[0];
+        volatile int size;
+
+        Entry(String author, String name, Slabs slabs) {
+            this.author = author;
+            this.name = name;
+            this.slabs = slabs;
+        }
+
+        void add(int x, int y) {
+            int index = size;
+            ByteBuffer[] current = chunks;
+            int chunk = index >>> CHUNK_SHIFT;
+            int offset = index & CHUNK_MASK;
+            if (chunk == current.length) {
+                current = Arrays.copyOf(current, chunk + 1);
+                current[chunk] = allocate(chunk == 0 ? INITIAL_POINTS : CHUNK_POINTS);
+            } else if (offset * 8 == current[chunk].capacity()) {
+                // Only the first chunk grows; a reader holding the old one still sees its prefix
+                ByteBuffer grown = allocate(Math.min(CHUNK_POINTS, offset * 2));
+                grown.put(0, current[chunk], 0, offset * 8);
+                current = current.clone();
+                current[chunk] = grown;
+            }
+            current[chunk].putInt(offset * 8, x).putInt(offset * 8 + 4, y);
+            stats.accept(x, y);
+            chunks = current;
+            size = index + 1;
+        }
+
+        ByteBuffer allocate(int points) {
+            return points < CHUNK_POINTS ? slabs.carve(points * 8) : slabs.allocate(points * 8);
+        }
+
+        /**
+         * Stops counting the full chunks of an entry that was never published; the GC frees them.
+         * A first chunk still in a slab is freed with the slab.
+         */
+        void release() {
+            for (ByteBuffer chunk : chunks) {
+                if (chunk.capacity() == CHUNK_POINTS * 8) slabs.allocated.addAndGet(-chunk.capacity());
+            }
+        }
+
+        synchronized Blueprint view() {
+            return Blueprint.view(author, name, new PointView(chunks, size), stats);
+        }
+
+        synchronized BlueprintSummary summary() {
+            return stats.toSummary(author, name);
+        }
+    }
+
+    /**
+     * Direct memory for the chunks. Chunks smaller than a full one are carved in sequence from 1 MiB slabs
+     * instead of each being a direct allocation, with its cleaner and native call, of its own. A slab is freed
+     * when none of its chunks is reachable any more, so the space of a first chunk that outgrew its slice is
+     * only reclaimed with the whole slab.
+     */
+    private static final class Slabs {
+        static final int SLAB_BYTES = 1 << 20;
+
+        final AtomicLong allocated;
+        /** Slab being carved, its position at the next free byte; guarded by this. */
+        private ByteBuffer slab;
+
+        Slabs(AtomicLong allocated) {
+            this.allocated = allocated;
+        }
+
+        ByteBuffer allocate(int bytes) {
+            allocated.addAndGet(bytes);
+            return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+        }
+
+        synchronized ByteBuffer carve(int bytes) {
+            if (slab == null || slab.remaining() < bytes) slab = allocate(SLAB_BYTES);
+            int at = slab.position();
+            slab.position(at + bytes);
+            // A slice is big-endian whatever the order of the slab
+            return slab.slice(at, bytes).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * Read-only list over the first {@code size} points of a chunk array. Points are decoded on access.
+     */
+    private static final class PointView extends AbstractList<Point> implements RandomAccess {
+        private final ByteBuffer[] chunks;
+        private final int size;
+
+        PointView(ByteBuffer[] chunks, int size) {
+            this.chunks = chunks;
+            this.size = size;
+        }
+
+        @Override
+        public Point get(int index) {
+            if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+            ByteBuffer chunk = chunks[index >>> Entry.CHUNK_SHIFT];
+            int offset = (index & Entry.CHUNK_MASK) * 8;
+            return new Point(chunk.getInt(offset), chunk.getInt(offset + 4));
+        }
+
+        @Override
+        public int size() { return size; }
+    }
+}
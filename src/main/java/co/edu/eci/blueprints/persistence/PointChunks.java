@@ -0,0 +1,35 @@
+package co.edu.eci.blueprints.persistence;
+
+import co.edu.eci.blueprints.model.Point;
+
+import java.util.List;
+
+/**
+ * Source of the points of a new blueprint, read in consecutive chunks so that a large upload
+ * never has to be held in memory as a whole.
+ */
+@FunctionalInterface
+public interface PointChunks {
+
+    /**
+     * Reads the next chunk of points.
+     * @return The next points in order, or an empty list once every point was read
+     * @throws BlueprintPersistenceException if the points cannot be read or are invalid
+     */
+    List<Point> next() throws BlueprintPersistenceException;
+
+    /**
+     * Reads a list of points in chunks.
+     * @param points Points to read; the list must not change while it is read
+     * @param chunkSize Maximum number of points per chunk
+     * @return Source of the points of the list
+     */
+    static PointChunks of(List<Point> points, int chunkSize) {
+        int[] next = {0};
+        return () -> {
+            int from = next[0];
+            next[0] = Math.min(points.size(), from + chunkSize);
+            return points.subList(from, next[0]);
+        };
+    }
+}
@@ -1,11 +1,24 @@
 package co.edu.eci.blueprints.persistence;
 
 import co.edu.eci.blueprints.model.Blueprint;
+import co.edu.eci.blueprints.model.BlueprintStats;
+import co.edu.eci.blueprints.model.BlueprintSummary;
+import co.edu.eci.blueprints.model.Point;
 import org.springframework.stereotype.Repository;
 import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
 import jakarta.persistence.EntityManager;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.exception.ConstraintViolationException;
 import jakarta.persistence.TypedQuery;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.List;
@@ -13,11 +26,31 @@ import java.util.List;
 /**
  * PostgreSQL implementation of BlueprintPersistence using Spring Data JPA.
  * Replaces the in-memory version and persists blueprints in the database.
+ * Not registered when another profile provides the primary persistence.
+ * Appends are optimistic: a conditional update on the version column detects concurrent appends to the
+ * same blueprint without locking it up front.
+ * Reads run in read-only transactions: Hibernate skips dirty checking and, with auto-commit off,
+ * the driver honors the configured fetch size instead of buffering whole result sets.
  */
 @Primary
 @Repository
+@Profile("!write-behind & !journal & !offheap & !memory")
 public class PostgresBlueprintPersistence implements BlueprintPersistence {
 
+    /**
+     * Constructor expression over the statistics columns: summaries never join the points table,
+     * so listing them costs O(blueprints) instead of O(total points).
+     */
+    private static final String SELECT_SUMMARY =
+        "SELECT new co.edu.eci.blueprints.model.BlueprintSummary(b.author, b.name, b.stats.sumX, b.stats.sumY, "
+            + "b.stats.pointCount, b.stats.minX, b.stats.minY, b.stats.maxX, b.stats.maxY, b.stats.pathLength) "
+            + "FROM Blueprint b";
+
+    /**
+     * Rows fetched per round trip by the export cursor, and points per chunk handed to the export sink.
+     */
+    private static final int EXPORT_CHUNK = 1000;
+
     @Autowired
     private EntityManager entityManager;
 
@@ -25,15 +58,56 @@ public class PostgresBlueprintPersistence implements BlueprintPersistence {
     public void saveBlueprint(Blueprint bp) throws BlueprintPersistenceException {
         try {
             entityManager.persist(bp);
+            // Flush now so a duplicate (author, name) is reported here rather than at commit
+            entityManager.flush();
+        } catch (ConstraintViolationException e) {
+            throw new BlueprintPersistenceException("Blueprint already exists: " + bp.getAuthor() + ":" + bp.getName());
         } catch (Exception e) {
             throw new BlueprintPersistenceException("Error saving blueprint: " + e.getMessage());
         }
     }
 
+    /**
+     * Inserts the blueprint row first, so a duplicate key is rejected before the points are read, and then
+     * each chunk of points with one JDBC batch, bypassing the persistence context: only one chunk is held
+     * in memory at a time. The statistics are accumulated along the way and written at the end.
+     * Everything runs in the caller's transaction, so readers never see a partially stored blueprint.
+     */
     @Override
+    @Transactional(rollbackFor = BlueprintPersistenceException.class)
+    public void saveBlueprint(String author, String name, PointChunks points) throws BlueprintPersistenceException {
+        Blueprint bp = new Blueprint(author, name, List.of());
+        saveBlueprint(bp);
+        long id = bp.getId();
+        entityManager.detach(bp);
+        Session session = entityManager.unwrap(Session.class);
+        BlueprintStats stats = new BlueprintStats();
+        try {
+            List<Point> chunk;
+            while (!(chunk = points.next()).isEmpty()) {
+                List<Point> batch = chunk;
+                int first = stats.getPointCount();
+                session.doWork(connection -> BlueprintRows.insertPoints(connection, id, first, batch));
+                for (Point p : batch) stats.accept(p.x(), p.y());
+            }
+        } catch (BlueprintPersistenceException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BlueprintPersistenceException("Error saving blueprint: " + e.getMessage());
+        }
+        BlueprintRows.statsUpdate(entityManager, id, stats, null).executeUpdate();
+    }
+
+    /**
+     * Loads the blueprint with its points in one query. The returned blueprint is complete without
+     * an open session, so it can be shared by coalesced readers on other threads.
+     */
+    @Override
+    @Transactional(readOnly = true)
     public Blueprint getBlueprint(String author, String name) throws BlueprintNotFoundException {
         TypedQuery<Blueprint> query = entityManager.createQuery(
-            "SELECT b FROM Blueprint b WHERE b.author = :author AND b.name = :name", Blueprint.class);
+            "SELECT b FROM Blueprint b LEFT JOIN FETCH b.points WHERE b.author = :author AND b.name = :name",
+            Blueprint.class);
         query.setParameter("author", author);
         query.setParameter("name", name);
         List<Blueprint> result = query.getResultList();
@@ -44,6 +118,21 @@ public class PostgresBlueprintPersistence implements BlueprintPersistence {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public BlueprintSummary getBlueprintSummary(String author, String name) throws BlueprintNotFoundException {
+        TypedQuery<BlueprintSummary> query = entityManager.createQuery(
+            SELECT_SUMMARY + " WHERE b.author = :author AND b.name = :name", BlueprintSummary.class);
+        query.setParameter("author", author);
+        query.setParameter("name", name);
+        List<BlueprintSummary> result = query.getResultList();
+        if (result.isEmpty()) {
+            throw new BlueprintNotFoundException("Blueprint not found: " + author + "/" + name);
+        }
+        return result.get(0);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Set<Blueprint> getBlueprintsByAuthor(String author) throws BlueprintNotFoundException {
         TypedQuery<Blueprint> query = entityManager.createQuery(
             "SELECT b FROM Blueprint b WHERE b.author = :author", Blueprint.class);
@@ -56,6 +145,7 @@ public class PostgresBlueprintPersistence implements BlueprintPersistence {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Set<Blueprint> getAllBlueprints() {
         TypedQuery<Blueprint> query = entityManager.createQuery(
             "SELECT b FROM Blueprint b", Blueprint.class);
@@ -63,9 +153,121 @@ public class PostgresBlueprintPersistence implements BlueprintPersistence {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Set<BlueprintSummary> getBlueprintSummariesByAuthor(String author) throws BlueprintNotFoundException {
+        TypedQuery<BlueprintSummary> query = entityManager.createQuery(
+            SELECT_SUMMARY + " WHERE b.author = :author", BlueprintSummary.class);
+        query.setParameter("author", author);
+        List<BlueprintSummary> result = query.getResultList();
+        if (result.isEmpty()) {
+            throw new BlueprintNotFoundException("No blueprints for author: " + author);
+        }
+        return new HashSet<>(result);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Set<BlueprintSummary> getAllBlueprintSummaries() {
+        TypedQuery<BlueprintSummary> query = entityManager.createQuery(SELECT_SUMMARY, BlueprintSummary.class);
+        return new HashSet<>(query.getResultList());
+    }
+
+    /**
+     * Exports every blueprint from one repeatable-read snapshot. A single ordered query over the blueprints
+     * and their points is read through a server-side cursor (read-only transactions run with auto-commit off,
+     * so pgjdbc honors the fetch size), and each blueprint's points are handed out in chunks as the rows arrive,
+     * so memory use does not depend on the size of the dataset.
+     */
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public void exportBlueprints(BlueprintSink sink) throws IOException, BlueprintPersistenceException {
+        Session session = entityManager.unwrap(Session.class);
+        try (ScrollableResults<Object[]> rows = session.createNativeQuery(
+                    "SELECT b.id, b.author, b.name, p.x, p.y FROM blueprints b "
+                        + "LEFT JOIN blueprint_points p ON p.blueprint_id = b.id ORDER BY b.id, p.point_order",
+                    Object[].class)
+                .setFetchSize(EXPORT_CHUNK)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            ExportCursor cursor = new ExportCursor(rows);
+            while (cursor.hasRow()) {
+                Object[] first = cursor.row();
+                cursor.start(((Number) first[0]).longValue());
+                sink.accept((String) first[1], (String) first[2], cursor);
+                cursor.skipBlueprint();
+            }
+        }
+    }
+
+    /**
+     * Walks the export rows, grouped by blueprint id, and reads the points of the current blueprint in chunks.
+     */
+    private static final class ExportCursor implements PointChunks {
+        private final ScrollableResults<Object[]> rows;
+        private boolean hasRow;
+        private long blueprintId;
+
+        ExportCursor(ScrollableResults<Object[]> rows) {
+            this.rows = rows;
+            this.hasRow = rows.next();
+        }
+
+        boolean hasRow() { return hasRow; }
+        Object[] row() { return rows.get(); }
+        void start(long id) { this.blueprintId = id; }
+
+        private boolean inBlueprint() {
+            return hasRow && ((Number) rows.get()[0]).longValue() == blueprintId;
+        }
+
+        @Override
+        public List<Point> next() {
+            List<Point> chunk = new ArrayList<>(EXPORT_CHUNK);
+            while (chunk.size() < EXPORT_CHUNK && inBlueprint()) {
+                Object[] row = rows.get();
+                // A blueprint without points has a single row with null coordinates
+                if (row[3] != null) chunk.add(new Point(((Number) row[3]).intValue(), ((Number) row[4]).intValue()));
+                hasRow = rows.next();
+            }
+            return chunk;
+        }
+
+        void skipBlueprint() {
+            while (inBlueprint()) hasRow = rows.next();
+        }
+    }
+
+    /**
+     * Appends a point in its own transaction without loading the points. The blueprint's id, version and
+     * statistics are read, and one conditional update bumps the version and writes the new statistics only if
+     * the version is still the one read; the point is then inserted as a single row at the old point count.
+     * Writers do not lock the row before that update, so a concurrent append to the same blueprint makes the
+     * update match no row and the attempt fails with an optimistic-locking conflict, to be retried by the caller.
+     * Appends to other blueprints are not affected.
+     */
+    @Override
+    @Transactional
     public void addPoint(String author, String name, int x, int y) throws BlueprintNotFoundException {
-        Blueprint bp = getBlueprint(author, name);
-        bp.addPoint(new co.edu.eci.blueprints.model.Point(x, y));
-        entityManager.merge(bp);
+        List<Object[]> result = entityManager.createQuery(
+                "SELECT b.id, b.version, b.stats FROM Blueprint b WHERE b.author = :author AND b.name = :name",
+                Object[].class)
+            .setParameter("author", author)
+            .setParameter("name", name)
+            .getResultList();
+        if (result.isEmpty()) {
+            throw new BlueprintNotFoundException("Blueprint not found: " + author + "/" + name);
+        }
+        long id = (Long) result.get(0)[0];
+        long version = (Long) result.get(0)[1];
+        BlueprintStats read = (BlueprintStats) result.get(0)[2];
+        BlueprintStats stats = read == null ? new BlueprintStats() : new BlueprintStats(read);
+        int order = stats.getPointCount();
+        stats.accept(x, y);
+        int updated = BlueprintRows.statsUpdate(entityManager, id, stats, version).executeUpdate();
+        if (updated == 0) {
+            throw new ObjectOptimisticLockingFailureException(Blueprint.class, id);
+        }
+        entityManager.unwrap(Session.class)
+            .doWork(connection -> BlueprintRows.insertPoints(connection, id, order, List.of(new Point(x, y))));
     }
 }
@@ -0,0 +1,299 @@
+package co.edu.eci.blueprints.persistence;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Change bus over PostgreSQL's LISTEN/NOTIFY, so the instances sharing a database need nothing else to
+ * tell each other about changes.
+ * <p>
+ * Published keys are delivered to the listeners of this instance right away, then coalesced for a short debounce
+ * window and sent as a few NOTIFY payloads of newline-separated keys through the connection pool; a key published
+ * many times in the window is sent once. Each payload starts with the id of the sending instance. Every instance
+ * LISTENs on a dedicated connection, outside the pool, and hands each batch of keys received from the others
+ * to the listeners.
+ * <p>
+ * When that connection drops, the listeners are reset as disconnected, so their caches fall back to short
+ * expiry times, and the connection is reopened with a growing delay. Changes published in between are lost,
+ * so the listeners are reset again once it is back.
+ * Profile: same as {@link PostgresBlueprintPersistence}
+ */
+@Component
+@Profile("!write-behind & !journal & !offheap & !memory")
+public class PostgresChangeBus extends LocalChangeBus {
+
+    private static final Logger log = LoggerFactory.getLogger(PostgresChangeBus.class);
+
+    /**
+     * Line meaning that any blueprint may have changed; it cannot be a key, which always contains ':'.
+     */
+    private static final String ALL = "*";
+    /**
+     * NOTIFY payloads must be shorter than 8000 bytes.
+     */
+    private static final int MAX_PAYLOAD_BYTES = 7900;
+    private static final long MAX_RECONNECT_DELAY_MS = 30_000;
+
+    private final DataSource dataSource;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final String channel;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final long debounceMs;
+    private final int heartbeatMs;
+    private final long reconnectMs;
+
+    /**
+     * Keys published and not yet sent, and whether a send is already scheduled for them.
+     */
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean sendScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService publisher;
+    private final Thread listenerThread;
+
+    private volatile boolean running = true;
+
+    private final Counter published;
+    private final Counter received;
+
+    /**
+     * Constructs the bus.
+     * @param dataSource Pool used to send the notifications
+     * @param properties Settings of the primary database, where the listening connection is opened
+     * @param registry Registry for the invalidation metrics
+     * @param channel Name of the notification channel shared by every instance
+     * @param debounceMs How long published keys are coalesced before they are sent
+     * @param heartbeatMs How often an idle listening connection is checked
+     * @param reconnectMs Delay before reopening a dropped connection, doubled after every failed attempt
+     */
+    public PostgresChangeBus(DataSource dataSource, DataSourceProperties properties, MeterRegistry registry,
+                             @Value("${blueprints.invalidation.channel:blueprints_changes}") String channel,
+                             @Value("${blueprints.invalidation.debounce-ms:50}") long debounceMs,
+                             @Value("${blueprints.invalidation.heartbeat-ms:5000}") int heartbeatMs,
+                             @Value("${blueprints.invalidation.reconnect-ms:1000}") long reconnectMs) {
+        super(false);
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalArgumentException("Invalid invalidation channel name: " + channel);
+        }
+        this.dataSource = dataSource;
+        this.url = properties.determineUrl();
+        this.username = properties.determineUsername();
+        this.password = properties.determinePassword();
+        this.channel = channel;
+        this.debounceMs = debounceMs;
+        this.heartbeatMs = Math.max(1, heartbeatMs);
+        this.reconnectMs = Math.max(1, reconnectMs);
+        this.publisher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "blueprints-invalidation-publisher");
+            t.setDaemon(true);
+            return t;
+        });
+        this.listenerThread = new Thread(this::listen, "blueprints-invalidation-listener");
+        this.listenerThread.setDaemon(true);
+        this.published = Counter.builder("blueprints.invalidation.published")
+                .description("Blueprint keys sent to the other instances")
+                .register(registry);
+        this.received = Counter.builder("blueprints.invalidation.received")
+                .description("Blueprint keys received from the other instances")
+                .register(registry);
+        Gauge.builder("blueprints.invalidation.connected", this, bus -> bus.isConnected() ? 1 : 0)
+                .description("1 while the instance listens for changes made by the others")
+                .register(registry);
+    }
+
+    @PostConstruct
+    void start() {
+        listenerThread.start();
+    }
+
+    /**
+     * Sends the keys still pending and stops listening.
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        publisher.shutdown();
+        publisher.awaitTermination(5, TimeUnit.SECONDS);
+        send();
+        listenerThread.join(heartbeatMs + 1000L);
+    }
+
+    @Override
+    public void publish(String key) {
+        super.publish(key);
+        pending.add(key);
+        scheduleSend(debounceMs);
+    }
+
+    @Override
+    public void publishAll() {
+        super.publishAll();
+        pending.add(ALL);
+        scheduleSend(debounceMs);
+    }
+
+    private void scheduleSend(long delayMs) {
+        if (sendScheduled.compareAndSet(false, true)) {
+            try {
+                publisher.schedule(this::send, delayMs, TimeUnit.MILLISECONDS);
+            } catch (RuntimeException e) {
+                // Shutting down: stop() sends what is left
+                sendScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Sends every pending key. Keys that cannot be sent are retried after the reconnection delay; until then
+     * the other instances rely on the expiry of their cached entries.
+     */
+    private void send() {
+        sendScheduled.set(false);
+        Set<String> keys = new HashSet<>();
+        for (Iterator<String> it = pending.iterator(); it.hasNext(); ) {
+            keys.add(it.next());
+            it.remove();
+        }
+        if (keys.isEmpty()) return;
+        List<String> payloads = payloads(keys);
+        try (Connection c = dataSource.getConnection();
+             PreparedStatement ps = c.prepareStatement("SELECT pg_notify(?, ?)")) {
+            for (String payload : payloads) {
+                ps.setString(1, channel);
+                ps.setString(2, payload);
+                ps.execute();
+            }
+            published.increment(keys.size());
+        } catch (SQLException e) {
+            log.warn("Could not publish {} blueprint changes, will retry: {}", keys.size(), e.getMessage());
+            pending.addAll(keys);
+            if (running) scheduleSend(reconnectMs);
+        }
+    }
+
+    /**
+     * Packs the keys into as few payloads as fit; a key too long for a payload of its own invalidates everything.
+     */
+    private List<String> payloads(Set<String> keys) {
+        if (keys.contains(ALL)) return List.of(instanceId + '\n' + ALL);
+        List<String> payloads = new ArrayList<>();
+        StringBuilder payload = new StringBuilder(instanceId);
+        int header = instanceId.length();
+        int bytes = header;
+        for (String key : keys) {
+            int keyBytes = key.getBytes(StandardCharsets.UTF_8).length;
+            if (header + 1 + keyBytes > MAX_PAYLOAD_BYTES || key.indexOf('\n') >= 0) {
+                return List.of(instanceId + '\n' + ALL);
+            }
+            if (bytes + 1 + keyBytes > MAX_PAYLOAD_BYTES) {
+                payloads.add(payload.toString());
+                payload.setLength(header);
+                bytes = header;
+            }
+            payload.append('\n').append(key);
+            bytes += 1 + keyBytes;
+        }
+        payloads.add(payload.toString());
+        return payloads;
+    }
+
+    /**
+     * Body of the listener thread: listens until the connection fails, then reopens it after a delay.
+     */
+    private void listen() {
+        long delay = reconnectMs;
+        while (running) {
+            try (Connection c = DriverManager.getConnection(url, connectionProperties())) {
+                try (Statement st = c.createStatement()) {
+                    st.execute("LISTEN " + channel);
+                }
+                log.info("Listening for blueprint changes on channel {}", channel);
+                setConnected(true);
+                delay = reconnectMs;
+                receive(c.unwrap(PGConnection.class), c);
+            } catch (SQLException | RuntimeException e) {
+                if (!running) break;
+                log.warn("Blueprint change channel unavailable, caches fall back to expiry; retrying in {} ms: {}",
+                        delay, e.getMessage());
+            }
+            if (isConnected()) setConnected(false);
+            if (!running) break;
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                break;
+            }
+            delay = Math.min(delay * 2, MAX_RECONNECT_DELAY_MS);
+        }
+    }
+
+    /**
+     * Credentials of the listening connection, named so it can be told apart in pg_stat_activity.
+     */
+    private Properties connectionProperties() {
+        Properties props = new Properties();
+        if (username != null) props.setProperty("user", username);
+        if (password != null) props.setProperty("password", password);
+        props.setProperty("ApplicationName", "blueprints-invalidation");
+        return props;
+    }
+
+    /**
+     * Hands the keys of the notifications the other instances sent in each wait to the listeners, as one batch.
+     * An idle connection is checked every heartbeat, since a broken network may not close it.
+     */
+    private void receive(PGConnection pg, Connection c) throws SQLException {
+        while (running) {
+            PGNotification[] notifications = pg.getNotifications(heartbeatMs);
+            if (notifications == null || notifications.length == 0) {
+                if (!c.isValid(Math.max(1, heartbeatMs / 1000))) throw new SQLException("Connection is no longer valid");
+                continue;
+            }
+            Set<String> keys = new HashSet<>();
+            boolean all = false;
+            for (PGNotification n : notifications) {
+                String[] lines = n.getParameter().split("\n");
+                if (lines[0].equals(instanceId)) continue;
+                for (int i = 1; i < lines.length; i++) {
+                    if (ALL.equals(lines[i])) all = true;
+                    else if (!lines[i].isEmpty()) keys.add(lines[i]);
+                }
+            }
+            received.increment(keys.size());
+            if (all) setConnected(true);
+            else if (!keys.isEmpty()) deliver(keys);
+        }
+    }
+}
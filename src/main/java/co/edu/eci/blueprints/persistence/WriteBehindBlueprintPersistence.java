@@ -0,0 +1,491 @@
+package co.edu.eci.blueprints.persistence;
+
+import co.edu.eci.blueprints.model.Blueprint;
+import co.edu.eci.blueprints.model.BlueprintStats;
+import co.edu.eci.blueprints.model.BlueprintSummary;
+import co.edu.eci.blueprints.model.Point;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind implementation of BlueprintPersistence combining an in-memory store with PostgreSQL.
+ * Reads and point appends are served from memory; changes are queued and flushed to the database
+ * asynchronously, coalesced per blueprint, in one transaction per batch. The points appended to a blueprint
+ * are inserted as rows with one JDBC batch and its statistics and version written with one update, without
+ * loading its points.
+ * The queue is bounded: writers wait when it is full until the flusher catches up, and give up with
+ * {@link WriteQueueFullException} after the configured wait. When a batch fails, its changes are retried one
+ * blueprint at a time, so a change the database rejects for good is dropped instead of blocking the queue.
+ * Profile: "write-behind"
+ */
+@Primary
+@Repository
+@Profile("write-behind")
+public class WriteBehindBlueprintPersistence implements BlueprintPersistence {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindBlueprintPersistence.class);
+
+    /**
+     * Authoritative in-memory copy of every blueprint, loaded from the database on startup.
+     */
+    private final InMemoryBlueprintPersistence memory = new InMemoryBlueprintPersistence(false);
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ScheduledExecutorService flusher;
+
+    private final long flushIntervalMs;
+    private final int batchSize;
+    private final int maxPending;
+    private final long enqueueTimeoutNanos;
+
+    /**
+     * Changes not yet handed to the flusher, in first-enqueued order, keyed by "author:name".
+     * Guarded by {@link #lock}.
+     */
+    private LinkedHashMap<String, PendingChange> pending = new LinkedHashMap<>();
+    private int pendingOps;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+
+    /**
+     * Enqueue time of the oldest change in the batch being flushed, or 0 when no flush is running.
+     */
+    private volatile long inFlightSinceNanos;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final AtomicLong flushedOps = new AtomicLong();
+    private final AtomicLong flushedBatches = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private final AtomicLong droppedOps = new AtomicLong();
+
+    /**
+     * Keys whose creation the database rejected; later appends to them are dropped as well, so they never land
+     * on a blueprint of the same key created elsewhere.
+     */
+    private final Set<String> rejectedCreations = ConcurrentHashMap.newKeySet();
+    private volatile long lastFlushDurationMs;
+
+    /**
+     * Constructs the write-behind persistence.
+     * @param entityManager Entity manager used by the flusher and the warm-up load
+     * @param transactionManager Transaction manager for the flush transactions
+     * @param flushIntervalMs Maximum time between flushes
+     * @param batchSize Number of queued operations that triggers an early flush
+     * @param maxPending Maximum number of queued operations before writers wait
+     * @param enqueueTimeoutMs How long a writer waits for room in a full queue before the change is refused
+     * @param registry Registry for the queue and durability metrics
+     */
+    public WriteBehindBlueprintPersistence(EntityManager entityManager,
+                                           PlatformTransactionManager transactionManager,
+                                           @Value("${blueprints.persistence.write-behind.flush-interval-ms:200}") long flushIntervalMs,
+                                           @Value("${blueprints.persistence.write-behind.batch-size:500}") int batchSize,
+                                           @Value("${blueprints.persistence.write-behind.max-pending:10000}") int maxPending,
+                                           @Value("${blueprints.persistence.write-behind.enqueue-timeout-ms:5000}") long enqueueTimeoutMs,
+                                           MeterRegistry registry) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.flushIntervalMs = flushIntervalMs;
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+        this.enqueueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(enqueueTimeoutMs);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "blueprints-write-behind");
+            t.setDaemon(true);
+            return t;
+        });
+        Gauge.builder("blueprints.write_behind.pending", this, p -> p.stats().pendingOps())
+                .description("Operations accepted in memory but not yet handed to the flusher")
+                .register(registry);
+        TimeGauge.builder("blueprints.write_behind.durability_lag", this, TimeUnit.MILLISECONDS,
+                        p -> p.stats().durabilityLagMs())
+                .description("Age of the oldest operation not yet committed to the database")
+                .register(registry);
+        TimeGauge.builder("blueprints.write_behind.last_flush_duration", this, TimeUnit.MILLISECONDS,
+                        p -> p.lastFlushDurationMs)
+                .description("Duration of the last successful flush")
+                .register(registry);
+        FunctionCounter.builder("blueprints.write_behind.flushed", flushedOps, AtomicLong::get)
+                .description("Operations committed to the database")
+                .register(registry);
+        FunctionCounter.builder("blueprints.write_behind.failed_flushes", failedFlushes, AtomicLong::get)
+                .description("Flush transactions that failed and were retried")
+                .register(registry);
+        FunctionCounter.builder("blueprints.write_behind.dropped", droppedOps, AtomicLong::get)
+                .description("Operations dropped because the database rejected them for good")
+                .register(registry);
+    }
+
+    /**
+     * Loads every blueprint from the database into memory and starts the periodic flusher.
+     */
+    @PostConstruct
+    void warmUp() {
+        long start = System.nanoTime();
+        List<Blueprint> loaded = transactionTemplate.execute(status -> entityManager.createQuery(
+                "SELECT b FROM Blueprint b LEFT JOIN FETCH b.points", Blueprint.class).getResultList());
+        for (Blueprint bp : loaded) {
+            try {
+                memory.saveBlueprint(bp);
+            } catch (BlueprintPersistenceException e) {
+                log.warn("Skipping duplicate blueprint during warm-up: {}", e.getMessage());
+            }
+        }
+        log.info("Write-behind warm-up loaded {} blueprints in {} ms",
+                loaded.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the flusher and writes every pending change before the application shuts down.
+     */
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(30, TimeUnit.SECONDS);
+        flush();
+        WriteBehindStats s = stats();
+        if (s.pendingOps() > 0) {
+            log.error("Write-behind shutdown with {} operations not flushed", s.pendingOps());
+        }
+    }
+
+    @Override
+    public void saveBlueprint(Blueprint bp) throws BlueprintPersistenceException {
+        // Locking the blueprint orders the creation before any append to it in the queue
+        synchronized (bp) {
+            awaitRoom();
+            memory.saveBlueprint(bp);
+            enqueue(bp.getAuthor(), bp.getName(), true, bp.getPoints());
+        }
+    }
+
+    @Override
+    public Blueprint getBlueprint(String author, String name) throws BlueprintNotFoundException {
+        return memory.getBlueprint(author, name);
+    }
+
+    @Override
+    public BlueprintSummary getBlueprintSummary(String author, String name) throws BlueprintNotFoundException {
+        return memory.getBlueprintSummary(author, name);
+    }
+
+    @Override
+    public Set<Blueprint> getBlueprintsByAuthor(String author) throws BlueprintNotFoundException {
+        return memory.getBlueprintsByAuthor(author);
+    }
+
+    @Override
+    public Set<Blueprint> getAllBlueprints() {
+        return memory.getAllBlueprints();
+    }
+
+    @Override
+    public Set<BlueprintSummary> getBlueprintSummariesByAuthor(String author) throws BlueprintNotFoundException {
+        return memory.getBlueprintSummariesByAuthor(author);
+    }
+
+    @Override
+    public Set<BlueprintSummary> getAllBlueprintSummaries() {
+        return memory.getAllBlueprintSummaries();
+    }
+
+    @Override
+    public void addPoint(String author, String name, int x, int y) throws BlueprintNotFoundException {
+        Blueprint bp = memory.getBlueprint(author, name);
+        synchronized (bp) {
+            awaitRoom();
+            memory.addPoint(author, name, x, y);
+            enqueue(author, name, false, List.of(new Point(x, y)));
+        }
+    }
+
+    /**
+     * Exports the blueprints served from memory, which include the changes not flushed yet.
+     */
+    @Override
+    public void exportBlueprints(BlueprintSink sink) throws IOException, BlueprintPersistenceException {
+        memory.exportBlueprints(sink);
+    }
+
+    /**
+     * Returns the current queue and durability figures of the write-behind layer.
+     * @return Snapshot of the write-behind statistics
+     */
+    public WriteBehindStats stats() {
+        long now = System.nanoTime();
+        long oldest = inFlightSinceNanos;
+        int ops;
+        lock.lock();
+        try {
+            ops = pendingOps;
+            if (!pending.isEmpty()) {
+                long first = pending.values().iterator().next().firstEnqueuedNanos;
+                oldest = oldest == 0 ? first : Math.min(oldest, first);
+            }
+        } finally {
+            lock.unlock();
+        }
+        long lagMs = oldest == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(now - oldest);
+        return new WriteBehindStats(ops, lagMs, flushedOps.get(), flushedBatches.get(),
+                failedFlushes.get(), droppedOps.get(), lastFlushDurationMs);
+    }
+
+    /**
+     * Waits while the queue is full, before the change is applied in memory.
+     * @throws WriteQueueFullException if the queue is still full after the configured wait
+     */
+    private void awaitRoom() {
+        lock.lock();
+        try {
+            long remaining = enqueueTimeoutNanos;
+            while (pendingOps >= maxPending) {
+                if (remaining <= 0) {
+                    throw new WriteQueueFullException("Write-behind queue full: " + pendingOps
+                            + " operations waiting for the database, retry later");
+                }
+                requestFlush();
+                remaining = notFull.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WriteQueueFullException("Interrupted while waiting for the write-behind queue");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queues a change already applied in memory. Writers wait in {@link #awaitRoom()} first, so the queue
+     * exceeds its bound by at most one change per writer.
+     */
+    private void enqueue(String author, String name, boolean created, List<Point> points) {
+        boolean triggerFlush;
+        lock.lock();
+        try {
+            pending.computeIfAbsent(author + ":" + name, k -> new PendingChange(author, name))
+                   .record(created, points);
+            pendingOps++;
+            triggerFlush = pendingOps >= batchSize;
+        } finally {
+            lock.unlock();
+        }
+        if (triggerFlush) requestFlush();
+    }
+
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true) && !flusher.isShutdown()) {
+            flusher.execute(this::flush);
+        }
+    }
+
+    /**
+     * Writes the queued changes to the database in a single transaction.
+     * On failure the changes are retried one blueprint at a time; see {@link #flushOneByOne}.
+     */
+    private void flush() {
+        flushRequested.set(false);
+        LinkedHashMap<String, PendingChange> batch;
+        int batchOps;
+        lock.lock();
+        try {
+            if (pending.isEmpty()) return;
+            batch = pending;
+            batchOps = pendingOps;
+            pending = new LinkedHashMap<>();
+            pendingOps = 0;
+            inFlightSinceNanos = batch.values().iterator().next().firstEnqueuedNanos;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> batch.values().forEach(this::write));
+            flushedOps.addAndGet(batchOps);
+            flushedBatches.incrementAndGet();
+            lastFlushDurationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        } catch (RuntimeException e) {
+            failedFlushes.incrementAndGet();
+            log.warn("Write-behind flush of {} operations failed, retrying one blueprint at a time: {}",
+                    batchOps, e.getMessage());
+            flushOneByOne(batch);
+        } finally {
+            inFlightSinceNanos = 0;
+        }
+    }
+
+    /**
+     * Writes each change of a failed batch in its own transaction, in order. A change the database rejects
+     * for good (an integrity or data error, such as a blueprint created with the same key by another instance)
+     * is dropped with an error log. Any other failure, such as a lost connection, stops the retry and puts the
+     * remaining changes back ahead of newer ones, so the per-blueprint order is preserved and the next flush
+     * retries them.
+     */
+    private void flushOneByOne(LinkedHashMap<String, PendingChange> batch) {
+        Iterator<PendingChange> it = batch.values().iterator();
+        while (it.hasNext()) {
+            PendingChange change = it.next();
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(change));
+                flushedOps.addAndGet(change.ops);
+            } catch (RuntimeException e) {
+                if (!isPermanent(e)) {
+                    int remaining = batch.values().stream().mapToInt(c -> c.ops).sum();
+                    log.warn("Write-behind flush failed, {} operations will be retried: {}", remaining, e.getMessage());
+                    requeue(batch, remaining);
+                    return;
+                }
+                if (change.created) rejectedCreations.add(change.author + ":" + change.name);
+                droppedOps.addAndGet(change.ops);
+                log.error("Dropping {} operations on {}/{} rejected by the database: {}",
+                        change.ops, change.author, change.name, e.getMessage());
+            }
+            it.remove();
+        }
+    }
+
+    /**
+     * Tells whether a flush failure would repeat on every retry: an integrity violation or a data error
+     * (SQLSTATE classes 23 and 22), as opposed to a connection or transaction failure.
+     */
+    private static boolean isPermanent(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof DataIntegrityViolationException) return true;
+            if (t instanceof SQLException sql && sql.getSQLState() != null
+                    && (sql.getSQLState().startsWith("22") || sql.getSQLState().startsWith("23"))) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Applies one coalesced change inside the flush transaction. For appends to a stored blueprint, its id,
+     * version and statistics are read, one update writes the new statistics and bumps the version if it is
+     * still the one read, and the points are inserted after the last one. A blueprint changed meanwhile by
+     * another instance fails the flush with an optimistic-locking conflict, and the change is retried later.
+     */
+    private void write(PendingChange change) {
+        if (!change.created && rejectedCreations.contains(change.author + ":" + change.name)) {
+            droppedOps.addAndGet(change.ops);
+            log.error("Dropping {} points for {}/{}, whose creation was rejected by the database",
+                    change.points.size(), change.author, change.name);
+            return;
+        }
+        if (change.created) {
+            entityManager.persist(new Blueprint(change.author, change.name, change.points));
+            return;
+        }
+        List<Object[]> result = entityManager.createQuery(
+                "SELECT b.id, b.version, b.stats FROM Blueprint b WHERE b.author = :author AND b.name = :name",
+                Object[].class)
+            .setParameter("author", change.author)
+            .setParameter("name", change.name)
+            .getResultList();
+        if (result.isEmpty()) {
+            log.error("Dropping {} points for missing blueprint {}/{}", change.points.size(), change.author, change.name);
+            return;
+        }
+        long id = (Long) result.get(0)[0];
+        long version = (Long) result.get(0)[1];
+        BlueprintStats read = (BlueprintStats) result.get(0)[2];
+        BlueprintStats stats = read == null ? new BlueprintStats() : new BlueprintStats(read);
+        int first = stats.getPointCount();
+        for (Point p : change.points) stats.accept(p.x(), p.y());
+        if (BlueprintRows.statsUpdate(entityManager, id, stats, version).executeUpdate() == 0) {
+            throw new ObjectOptimisticLockingFailureException(Blueprint.class, id);
+        }
+        entityManager.unwrap(Session.class)
+            .doWork(connection -> BlueprintRows.insertPoints(connection, id, first, change.points));
+    }
+
+    private void requeue(LinkedHashMap<String, PendingChange> batch, int batchOps) {
+        lock.lock();
+        try {
+            for (Map.Entry<String, PendingChange> e : pending.entrySet()) {
+                batch.merge(e.getKey(), e.getValue(), PendingChange::then);
+            }
+            pending = batch;
+            pendingOps += batchOps;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Coalesced changes of one blueprint: an optional creation followed by appended points, in order.
+     */
+    private static final class PendingChange {
+        final String author;
+        final String name;
+        final long firstEnqueuedNanos = System.nanoTime();
+        final List<Point> points = new ArrayList<>();
+        boolean created;
+        int ops;
+
+        PendingChange(String author, String name) {
+            this.author = author;
+            this.name = name;
+        }
+
+        void record(boolean creation, List<Point> pts) {
+            created |= creation;
+            points.addAll(pts);
+            ops++;
+        }
+
+        PendingChange then(PendingChange later) {
+            created |= later.created;
+            points.addAll(later.points);
+            ops += later.ops;
+            return this;
+        }
+    }
+
+    /**
+     * Queue and durability figures of the write-behind layer.
+     *
+     * @param pendingOps Operations accepted in memory but not yet handed to the flusher
+     * @param durabilityLagMs Age of the oldest operation not yet committed to the database
+     * @param flushedOps Operations committed since startup
+     * @param flushedBatches Flush transactions committed since startup
+     * @param failedFlushes Flush transactions that failed and were retried
+     * @param droppedOps Operations dropped because the database rejected them for good
+     * @param lastFlushDurationMs Duration of the last successful flush
+     */
+    public record WriteBehindStats(int pendingOps, long durabilityLagMs, long flushedOps,
+                                   long flushedBatches, long failedFlushes, long droppedOps,
+                                   long lastFlushDurationMs) {}
+}
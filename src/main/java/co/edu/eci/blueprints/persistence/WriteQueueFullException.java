@@ -0,0 +1,14 @@
+package co.edu.eci.blueprints.persistence;
+
+/**
+ * Exception thrown when a change cannot be queued for the database because the write-behind queue stayed full
+ * for longer than the configured wait. The change is not applied.
+ */
+public class WriteQueueFullException extends RuntimeException {
+
+    /**
+     * Constructs a new WriteQueueFullException with the specified detail message.
+     * @param msg the detail message describing the state of the queue
+     */
+    public WriteQueueFullException(String msg) { super(msg); }
+}
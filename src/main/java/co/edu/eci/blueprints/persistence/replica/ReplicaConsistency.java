@@ -0,0 +1,68 @@
+package co.edu.eci.blueprints.persistence.replica;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Read-your-writes token handling. After a write, the client receives the primary's WAL position (LSN) in the
+ * {@value #HEADER} response header and sends it back on later requests; a read carrying a token is served by the
+ * replica only once the replica has replayed up to that position.
+ */
+public final class ReplicaConsistency {
+
+    /**
+     * Header carrying the LSN token.
+     */
+    public static final String HEADER = "X-Blueprints-LSN";
+
+    private static final ThreadLocal<Long> REQUIRED_LSN = new ThreadLocal<>();
+
+    private ReplicaConsistency() {}
+
+    static void require(long lsn) { REQUIRED_LSN.set(lsn); }
+
+    static void clear() { REQUIRED_LSN.remove(); }
+
+    /**
+     * Gets the WAL position the current request must observe.
+     * @return Required LSN, or 0 when the request carries no token
+     */
+    static long requiredLsn() {
+        Long lsn = REQUIRED_LSN.get();
+        return lsn == null ? 0 : lsn;
+    }
+
+    /**
+     * Parses an LSN in PostgreSQL's {@code X/Y} hexadecimal form.
+     * @param text LSN text
+     * @return LSN as a number, or 0 when the text is null or malformed
+     */
+    static long parse(String text) {
+        if (text == null) return 0;
+        int slash = text.indexOf('/');
+        if (slash < 0) return 0;
+        try {
+            return (Long.parseLong(text.substring(0, slash).trim(), 16) << 32)
+                    | Long.parseLong(text.substring(slash + 1).trim(), 16);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    static String format(long lsn) {
+        return Long.toHexString(lsn >>> 32).toUpperCase() + "/" + Long.toHexString(lsn & 0xFFFFFFFFL).toUpperCase();
+    }
+
+    /**
+     * Runs a single-value LSN query.
+     * @return The LSN, or 0 when the query returns null (for example replay position on a server that is not a standby)
+     */
+    static long queryLsn(DataSource dataSource, String sql) throws SQLException {
+        try (Connection c = dataSource.getConnection(); Statement s = c.createStatement(); ResultSet rs = s.executeQuery(sql)) {
+            return rs.next() ? parse(rs.getString(1)) : 0;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package co.edu.eci.blueprints.persistence.replica;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Makes the LSN token sent by the client in {@value ReplicaConsistency#HEADER} the requirement of the current request.
+ * Profile: "replica"
+ */
+@Component
+@Profile("replica")
+public class ReplicaConsistencyFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long lsn = ReplicaConsistency.parse(request.getHeader(ReplicaConsistency.HEADER));
+        if (lsn == 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+        ReplicaConsistency.require(lsn);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReplicaConsistency.clear();
+        }
+    }
+}
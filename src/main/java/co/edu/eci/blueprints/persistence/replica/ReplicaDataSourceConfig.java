@@ -0,0 +1,66 @@
+package co.edu.eci.blueprints.persistence.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Routes read-only transactions to a replica and everything else to the primary.
+ * The primary is configured with {@code spring.datasource.*} and the replica with
+ * {@code blueprints.datasource.replica.*}. The routing data source hands out lazy connections, so the target is
+ * chosen at the first statement, once the transaction's read-only flag is known. Reads in
+ * {@code PostgresBlueprintPersistence} are read-only transactions; writes run in the services' transactions.
+ * Profile: "replica"
+ */
+@Configuration
+@Profile("replica")
+public class ReplicaDataSourceConfig {
+
+    /**
+     * Qualifier of the primary's pool.
+     */
+    public static final String PRIMARY = "primaryDataSource";
+
+    @Bean(PRIMARY)
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    /**
+     * Not an autowire candidate, so the auto-configured {@code spring.datasource} properties stay unambiguous.
+     */
+    @Bean(autowireCandidate = false)
+    @ConfigurationProperties("blueprints.datasource.replica")
+    DataSourceProperties replicaDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = replicaDataSourceProperties().initializeDataSourceBuilder()
+                .type(HikariDataSource.class).build();
+        dataSource.setPoolName("replica");
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(@Qualifier(PRIMARY) HikariDataSource primary,
+                          @Qualifier("replicaDataSource") HikariDataSource replica) {
+        LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(primary);
+        routing.setReadOnlyDataSource(new ReplicaReadDataSource(replica, primary));
+        return routing;
+    }
+}
@@ -0,0 +1,44 @@
+package co.edu.eci.blueprints.persistence.replica;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Data source for read-only transactions: connections come from the replica unless the current request requires
+ * a WAL position the replica has not replayed yet, in which case they come from the primary.
+ * The replica's replay position only grows, so the last value seen is cached and the replica is queried
+ * only when a token is ahead of it.
+ */
+class ReplicaReadDataSource extends DelegatingDataSource {
+
+    private final DataSource primary;
+    private final AtomicLong replayedLsn = new AtomicLong();
+
+    ReplicaReadDataSource(DataSource replica, DataSource primary) {
+        super(replica);
+        this.primary = primary;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return caughtUp() ? obtainTargetDataSource().getConnection() : primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return caughtUp() ? obtainTargetDataSource().getConnection(username, password)
+                : primary.getConnection(username, password);
+    }
+
+    private boolean caughtUp() throws SQLException {
+        long required = ReplicaConsistency.requiredLsn();
+        if (required <= replayedLsn.get()) return true;
+        long replayed = ReplicaConsistency.queryLsn(obtainTargetDataSource(), "SELECT pg_last_wal_replay_lsn()");
+        replayedLsn.accumulateAndGet(replayed, Math::max);
+        return required <= replayed;
+    }
+}
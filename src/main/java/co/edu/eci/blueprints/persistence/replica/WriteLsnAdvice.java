@@ -0,0 +1,58 @@
+package co.edu.eci.blueprints.persistence.replica;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Adds the primary's current WAL position to the response of every write, after the write's transaction
+ * has committed and before the body is written, so the client can require it on later reads.
+ * The insert position is used rather than the write position: with {@code synchronous_commit=off} the commit
+ * record may not have been written out yet, and a token before it would let the replica answer without the write.
+ * Profile: "replica"
+ */
+@ControllerAdvice
+@Profile("replica")
+public class WriteLsnAdvice implements ResponseBodyAdvice<Object> {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteLsnAdvice.class);
+
+    private final DataSource primary;
+
+    public WriteLsnAdvice(@Qualifier(ReplicaDataSourceConfig.PRIMARY) DataSource primary) {
+        this.primary = primary;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType contentType,
+                                  Class<? extends HttpMessageConverter<?>> converterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        HttpMethod method = request.getMethod();
+        if (method == HttpMethod.POST || method == HttpMethod.PUT || method == HttpMethod.DELETE) {
+            try {
+                long lsn = ReplicaConsistency.queryLsn(primary, "SELECT pg_current_wal_insert_lsn()");
+                response.getHeaders().set(ReplicaConsistency.HEADER, ReplicaConsistency.format(lsn));
+            } catch (SQLException e) {
+                log.warn("Could not read the primary WAL position: {}", e.getMessage());
+            }
+        }
+        return body;
+    }
+}
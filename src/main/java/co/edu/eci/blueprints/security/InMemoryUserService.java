@@ -6,14 +6,21 @@ import java.util.Map;
 
 @Service
 public class InMemoryUserService {
+    private static final String DEFAULT_SCOPE = "blueprints.read blueprints.write";
+
     private final Map<String, String> users; // username -> hash
+    private final Map<String, String> scopes; // username -> scope, when not the default
     private final PasswordEncoder encoder;
 
     public InMemoryUserService(PasswordEncoder encoder) {
         this.encoder = encoder;
         this.users = Map.of(
             "student", encoder.encode("student123"),
-            "assistant", encoder.encode("assistant123")
+            "assistant", encoder.encode("assistant123"),
+            "admin", encoder.encode("admin123")
+        );
+        this.scopes = Map.of(
+            "admin", DEFAULT_SCOPE + " blueprints.admin"
         );
     }
 
@@ -21,4 +28,15 @@ public class InMemoryUserService {
         String hash = users.get(username);
         return hash != null && encoder.matches(rawPassword, hash);
     }
+
+    /**
+     * Space separated scopes to put in the token of a user. Only the admin user gets {@code blueprints.admin},
+     * which the backup endpoints and the actuator require.
+     *
+     * @param username an already validated username
+     * @return the scope claim for the user
+     */
+    public String scopeOf(String username) {
+        return scopes.getOrDefault(username, DEFAULT_SCOPE);
+    }
 }
@@ -23,7 +23,8 @@ public class SecurityConfig {
         http
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(auth -> auth
-                .requestMatchers("/actuator/health", "/auth/login").permitAll()
+                .requestMatchers("/actuator/health", "/actuator/health/**", "/actuator/prometheus", "/auth/login").permitAll()
+                .requestMatchers("/actuator/**").hasAuthority("SCOPE_blueprints.admin")
                 .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
                 .requestMatchers("/api/v1/blueprints/**").hasAuthority("SCOPE_blueprints.read")
                 .requestMatchers("/api/v1/blueprints").hasAuthority("SCOPE_blueprints.write")
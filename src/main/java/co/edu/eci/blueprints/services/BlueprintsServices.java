@@ -2,14 +2,29 @@ package co.edu.eci.blueprints.services;
 
 import co.edu.eci.blueprints.filters.BlueprintsFilter;
 import co.edu.eci.blueprints.model.Blueprint;
+import co.edu.eci.blueprints.model.BlueprintSummary;
+import co.edu.eci.blueprints.persistence.BlueprintChangeBus;
 import co.edu.eci.blueprints.persistence.BlueprintNotFoundException;
 import co.edu.eci.blueprints.persistence.BlueprintPersistence;
 import co.edu.eci.blueprints.persistence.BlueprintPersistenceException;
+import co.edu.eci.blueprints.persistence.BlueprintSink;
+import co.edu.eci.blueprints.persistence.PointChunks;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.transaction.Transactional;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.IOException;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Service layer for blueprint operations.
@@ -18,6 +33,14 @@ import java.util.Set;
 @Service
 public class BlueprintsServices {
 
+    /**
+     * Source of the blueprints of an import, which hands each one to the given sink.
+     */
+    @FunctionalInterface
+    public interface ImportSource {
+        void readInto(BlueprintSink sink) throws IOException, BlueprintPersistenceException;
+    }
+
     /**
      * Persistence layer for storing and retrieving blueprints.
      */
@@ -28,14 +51,87 @@ public class BlueprintsServices {
      */
     private final BlueprintsFilter filter;
 
+    /**
+     * Attempts made for a write that keeps losing optimistic-locking races, and the base backoff between them.
+     */
+    private final int maxAttempts;
+    private final long backoffNanos;
+
+    /**
+     * Concurrent reads of the same blueprint share one load and filter pass.
+     */
+    private final SingleFlight<String, Blueprint> blueprintLoads = new SingleFlight<>();
+
+    /**
+     * Keys recently looked up and not found, answered without reaching the persistence layer.
+     */
+    private final NegativeLookupCache misses;
+
+    /**
+     * Tells the caches of this instance and of the others about saves and appends made here,
+     * and those of this instance about the others'.
+     */
+    private final BlueprintChangeBus changes;
+
+    private final Counter conflictsRetried;
+    private final Counter conflictsExhausted;
+
     /**
      * Constructs the service with the required persistence and filter dependencies.
      * @param persistence The persistence implementation for blueprints
      * @param filter The filter to apply to blueprints
+     * @param registry Registry for the optimistic-locking conflict counters
+     * @param maxAttempts Maximum attempts of a write that fails on an optimistic-locking conflict
+     * @param backoffMs Base backoff before retrying; doubled on every attempt, with random jitter
+     * @param missTtlMs How long a blueprint that was not found is remembered as missing; 0 disables it
+     * @param missMaxEntries Maximum number of blueprints remembered as missing
+     * @param missNotifiedTtlMs How long a missing blueprint is remembered while the change bus is connected
+     * @param changes Change bus, shared with the other instances when they use the same database
      */
-    public BlueprintsServices(BlueprintPersistence persistence, BlueprintsFilter filter) {
+    public BlueprintsServices(BlueprintPersistence persistence, BlueprintsFilter filter, MeterRegistry registry,
+                              @Value("${blueprints.optimistic-lock.max-attempts:30}") int maxAttempts,
+                              @Value("${blueprints.optimistic-lock.backoff-ms:5}") long backoffMs,
+                              @Value("${blueprints.negative-cache.ttl-ms:2000}") long missTtlMs,
+                              @Value("${blueprints.negative-cache.max-entries:100000}") int missMaxEntries,
+                              @Value("${blueprints.negative-cache.notified-ttl-ms:30000}") long missNotifiedTtlMs,
+                              BlueprintChangeBus changes) {
         this.persistence = persistence;
         this.filter = filter;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffNanos = backoffMs * 1_000_000L;
+        this.misses = new NegativeLookupCache(missTtlMs, missMaxEntries);
+        this.changes = changes;
+        // A disabled cache stays disabled; otherwise misses are kept longer while saves elsewhere are delivered
+        long notifiedTtlMs = missTtlMs > 0 ? missNotifiedTtlMs : 0;
+        changes.subscribe(new BlueprintChangeBus.Listener() {
+            @Override
+            public void changed(Set<String> keys) { keys.forEach(misses::invalidate); }
+
+            @Override
+            public void reset(boolean connected) {
+                misses.expireAfter(connected ? notifiedTtlMs : missTtlMs);
+                misses.invalidateAll();
+            }
+        });
+        this.conflictsRetried = conflicts(registry, "retried");
+        this.conflictsExhausted = conflicts(registry, "exhausted");
+        FunctionCounter.builder("blueprints.singleflight.coalesced", blueprintLoads, SingleFlight::coalesced)
+                .description("Blueprint reads that joined a load already in flight instead of running their own")
+                .register(registry);
+        FunctionCounter.builder("blueprints.negative_cache.hits", misses, NegativeLookupCache::hits)
+                .description("Blueprint lookups answered as not found without reaching the persistence layer")
+                .register(registry);
+        Gauge.builder("blueprints.negative_cache.size", misses, NegativeLookupCache::size)
+                .description("Blueprint keys remembered as missing")
+                .register(registry);
+    }
+
+    private static Counter conflicts(MeterRegistry registry, String outcome) {
+        return Counter.builder("blueprints.optimistic_lock.conflicts")
+                .description("Writes that lost an optimistic-locking race, by what happened next")
+                .tag("operation", "addPoint")
+                .tag("outcome", outcome)
+                .register(registry);
     }
 
     /**
@@ -43,9 +139,79 @@ public class BlueprintsServices {
      * @param bp The blueprint to add
      * @throws BlueprintPersistenceException if a blueprint with the same key already exists
      */
-    @Transactional
+    @Transactional(rollbackOn = BlueprintPersistenceException.class)
     public void addNewBlueprint(Blueprint bp) throws BlueprintPersistenceException {
         persistence.saveBlueprint(bp);
+        forgetMiss(bp.getAuthor() + ":" + bp.getName());
+    }
+
+    /**
+     * Adds a new blueprint whose points are read in chunks, such as a large upload. Persistence layers that
+     * support it store each chunk as it is read instead of holding every point in memory.
+     * @param author The author's name
+     * @param name The blueprint's name
+     * @param points Source of the blueprint's points
+     * @throws BlueprintPersistenceException if a blueprint with the same key already exists or the points are invalid
+     */
+    @Transactional(rollbackOn = BlueprintPersistenceException.class)
+    public void addNewBlueprint(String author, String name, PointChunks points) throws BlueprintPersistenceException {
+        persistence.saveBlueprint(author, name, points);
+        forgetMiss(author + ":" + name);
+    }
+
+    /**
+     * Writes every blueprint to the sink from a consistent snapshot, one blueprint at a time.
+     * @param sink Receiver of the blueprints
+     * @throws IOException if the sink cannot write a blueprint
+     * @throws BlueprintPersistenceException if the blueprints cannot be read
+     */
+    public void exportBlueprints(BlueprintSink sink) throws IOException, BlueprintPersistenceException {
+        persistence.exportBlueprints(sink);
+    }
+
+    /**
+     * Adds every blueprint read from an export. With PostgreSQL the import runs in one transaction,
+     * so it is stored completely or not at all.
+     * @param source Source of the blueprints
+     * @return Number of blueprints imported
+     * @throws IOException if the source cannot be read
+     * @throws BlueprintPersistenceException if a blueprint already exists or its points are invalid
+     */
+    @Transactional(rollbackOn = {BlueprintPersistenceException.class, IOException.class})
+    public long importBlueprints(ImportSource source) throws IOException, BlueprintPersistenceException {
+        long[] imported = {0};
+        try {
+            source.readInto((author, name, points) -> {
+                persistence.saveBlueprint(author, name, points);
+                imported[0]++;
+            });
+        } finally {
+            // Without a transaction the blueprints saved before a failure stay, so they are forgotten as well
+            afterCommit(changes::publishAll);
+        }
+        return imported[0];
+    }
+
+    /**
+     * Announces a save once it is visible, which removes the key from the negative lookup cache
+     * here and on the other instances.
+     */
+    private void forgetMiss(String key) {
+        afterCommit(() -> changes.publish(key));
+    }
+
+    /**
+     * Runs the action after the commit when a transaction is active, or right away otherwise.
+     */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() { action.run(); }
+            });
+        } else {
+            action.run();
+        }
     }
 
     /**
@@ -68,28 +234,94 @@ public class BlueprintsServices {
         return persistence.getBlueprintsByAuthor(author);
     }
 
+    /**
+     * Retrieves the summaries of all blueprints, without loading their points.
+     * @return A set of summaries of all blueprints
+     */
+    public Set<BlueprintSummary> getAllBlueprintSummaries() {
+        return persistence.getAllBlueprintSummaries();
+    }
+
+    /**
+     * Retrieves the summaries of all blueprints created by a specific author, without loading their points.
+     * @param author The author's name
+     * @return A set of summaries of the author's blueprints
+     * @throws BlueprintNotFoundException if no blueprints are found for the author
+     */
+    public Set<BlueprintSummary> getBlueprintSummariesByAuthor(String author) throws BlueprintNotFoundException {
+        return persistence.getBlueprintSummariesByAuthor(author);
+    }
+
     /**
      * Retrieves a specific blueprint by author and name, applying the configured filter before returning it.
+     * Concurrent calls for the same blueprint are coalesced: one of them loads and filters it,
+     * and the others receive that same result, or the same exception.
+     * A blueprint recently found missing is reported as not found without a lookup.
      * @param author The author's name
      * @param name The blueprint's name
-     * @return The filtered blueprint
+     * @return The filtered blueprint, possibly shared with concurrent callers
      * @throws BlueprintNotFoundException if the blueprint is not found
      */
     public Blueprint getBlueprint(String author, String name) throws BlueprintNotFoundException {
         // Mantener retorno de entidad, el mapeo a DTO se hace en el controlador
-        return filter.apply(persistence.getBlueprint(author, name));
+        String key = author + ":" + name;
+        return misses.load(key, () -> blueprintLoads.execute(key,
+                () -> filter.apply(persistence.getBlueprint(author, name))));
+    }
+
+    /**
+     * Retrieves the aggregate statistics of a blueprint without loading or filtering its points.
+     * @param author The author's name
+     * @param name The blueprint's name
+     * @return The blueprint summary
+     * @throws BlueprintNotFoundException if the blueprint is not found
+     */
+    public BlueprintSummary getBlueprintSummary(String author, String name) throws BlueprintNotFoundException {
+        return misses.load(author + ":" + name, () -> persistence.getBlueprintSummary(author, name));
     }
 
     /**
      * Adds a new point to an existing blueprint.
+     * Each attempt runs in its own transaction. An attempt that loses an optimistic-locking race with a
+     * concurrent append to the same blueprint is retried on a fresh read after a short jittered backoff,
+     * so no point is lost; appends to different blueprints never conflict.
+     * The other instances are told about the append once it is committed.
      * @param author The author's name
      * @param name The blueprint's name
      * @param x The x-coordinate of the new point
      * @param y The y-coordinate of the new point
      * @throws BlueprintNotFoundException if the blueprint is not found
+     * @throws BlueprintPersistenceException if the point could not be stored
+     * @throws OptimisticLockingFailureException if every attempt lost a race with a concurrent append
+     */
+    public void addPoint(String author, String name, int x, int y)
+            throws BlueprintNotFoundException, BlueprintPersistenceException {
+        appendWithRetry(author, name, x, y);
+        changes.publish(author + ":" + name);
+    }
+
+    private void appendWithRetry(String author, String name, int x, int y)
+            throws BlueprintNotFoundException, BlueprintPersistenceException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                persistence.addPoint(author, name, x, y);
+                return;
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    conflictsExhausted.increment();
+                    throw e;
+                }
+                conflictsRetried.increment();
+                backoff(attempt);
+            }
+        }
+    }
+
+    /**
+     * Waits a random time up to the base backoff doubled per attempt, so writers that collided spread out.
      */
-    @Transactional
-    public void addPoint(String author, String name, int x, int y) throws BlueprintNotFoundException {
-        persistence.addPoint(author, name, x, y);
+    private void backoff(int attempt) {
+        long bound = backoffNanos << Math.min(attempt - 1, 10);
+        if (bound > 0) LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(bound));
     }
 }
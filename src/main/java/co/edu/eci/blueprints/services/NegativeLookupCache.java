@@ -0,0 +1,121 @@
+package co.edu.eci.blueprints.services;
+
+import co.edu.eci.blueprints.persistence.BlueprintNotFoundException;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Short-lived memory of blueprint keys that were looked up and not found, so repeated misses are answered
+ * without reaching the persistence layer. The not-found exception is stackless and is kept and rethrown as is.
+ * <p>
+ * A save invalidates its key once it is visible to readers. A miss read before that point but recorded after it
+ * is detected with a save counter and dropped, so a blueprint is never reported missing after its creation
+ * has been acknowledged. Saves made by other instances are only picked up when the entry expires, unless they
+ * are delivered through a {@link co.edu.eci.blueprints.persistence.BlueprintChangeBus}, which also switches the
+ * expiry time between a long one while it is connected and a short one while it is not.
+ */
+public final class NegativeLookupCache {
+
+    private record Miss(long expiresAtNanos, BlueprintNotFoundException error) {}
+
+    private final ConcurrentHashMap<String, Miss> misses = new ConcurrentHashMap<>();
+    private final AtomicLong saves = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private volatile long ttlNanos;
+    private final int maxEntries;
+
+    /**
+     * Constructs the cache.
+     * @param ttlMs How long a miss is remembered; 0 disables the cache
+     * @param maxEntries Maximum number of remembered misses; new misses are not recorded while it is full
+     */
+    public NegativeLookupCache(long ttlMs, int maxEntries) {
+        this.ttlNanos = ttlMs * 1_000_000L;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Runs the lookup unless the key is known to be missing, and remembers the key if the lookup does not find it.
+     * @param key Blueprint key, "author:name"
+     * @param lookup Lookup to run
+     * @param <V> Result type
+     * @return Result of the lookup
+     * @throws BlueprintNotFoundException if the key is remembered as missing or the lookup does not find it
+     */
+    public <V> V load(String key, SingleFlight.Loader<V, BlueprintNotFoundException> lookup)
+            throws BlueprintNotFoundException {
+        BlueprintNotFoundException known = lookup(key);
+        if (known != null) throw known;
+        long epoch = saves.get();
+        try {
+            return lookup.load();
+        } catch (BlueprintNotFoundException e) {
+            record(key, epoch, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Forgets a key because a blueprint with it was saved. Call once the save is visible to readers.
+     * @param key Blueprint key, "author:name"
+     */
+    public void invalidate(String key) {
+        saves.incrementAndGet();
+        misses.remove(key);
+    }
+
+    /**
+     * Forgets every key, as after a bulk import. Call once the saves are visible to readers.
+     */
+    public void invalidateAll() {
+        saves.incrementAndGet();
+        misses.clear();
+    }
+
+    /**
+     * Changes how long new misses are remembered; misses already recorded keep their expiry time.
+     * @param ttlMs How long a miss is remembered; 0 stops recording misses
+     */
+    public void expireAfter(long ttlMs) {
+        this.ttlNanos = ttlMs * 1_000_000L;
+    }
+
+    /**
+     * Gets the number of lookups answered from the cache.
+     * @return Hits since startup
+     */
+    public long hits() { return hits.sum(); }
+
+    /**
+     * Gets the number of remembered misses, including expired ones not yet evicted.
+     * @return Entries in the cache
+     */
+    public int size() { return misses.size(); }
+
+    private BlueprintNotFoundException lookup(String key) {
+        Miss miss = misses.get(key);
+        if (miss == null) return null;
+        if (System.nanoTime() - miss.expiresAtNanos >= 0) {
+            misses.remove(key, miss);
+            return null;
+        }
+        hits.increment();
+        return miss.error;
+    }
+
+    private void record(String key, long epoch, BlueprintNotFoundException error) {
+        long ttl = ttlNanos;
+        if (ttl <= 0) return;
+        long now = System.nanoTime();
+        if (misses.size() >= maxEntries) {
+            misses.values().removeIf(m -> now - m.expiresAtNanos >= 0);
+            if (misses.size() >= maxEntries) return;
+        }
+        Miss miss = new Miss(now + ttl, error);
+        misses.put(key, miss);
+        // A save that completed while the lookup ran may have been missed by it
+        if (saves.get() != epoch) misses.remove(key, miss);
+    }
+}
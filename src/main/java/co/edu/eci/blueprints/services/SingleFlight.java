@@ -0,0 +1,75 @@
+package co.edu.eci.blueprints.services;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the load, and callers that arrive
+ * while it is in flight wait for it and receive the same result or the same exception.
+ * Nothing is cached; once a load completes, the next caller starts a new one.
+ * @param <K> Key type
+ * @param <V> Result type
+ */
+public final class SingleFlight<K, V> {
+
+    /**
+     * A load that may fail with a checked exception.
+     * @param <V> Result type
+     * @param <E> Checked exception type
+     */
+    @FunctionalInterface
+    public interface Loader<V, E extends Exception> {
+        V load() throws E;
+    }
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Runs the load for the key, or joins the one already in flight for it.
+     * @param key Key identifying the load
+     * @param loader Load to run if none is in flight for the key
+     * @param <E> Checked exception thrown by the load
+     * @return Result of the load
+     * @throws E if the load failed, also for the callers that joined it
+     */
+    public <E extends Exception> V execute(K key, Loader<V, E> loader) throws E {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> leader = inFlight.putIfAbsent(key, call);
+        if (leader != null) {
+            coalesced.increment();
+            return await(leader);
+        }
+        try {
+            V value = loader.load();
+            call.complete(value);
+            return value;
+        } catch (Throwable t) {
+            call.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    /**
+     * Gets the number of calls that joined a load in flight instead of running their own.
+     * @return Coalesced calls since startup
+     */
+    public long coalesced() { return coalesced.sum(); }
+
+    @SuppressWarnings("unchecked")
+    private <E extends Exception> V await(CompletableFuture<V> leader) throws E {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            // The loader only throws E besides unchecked exceptions
+            throw (E) cause;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package co.edu.eci.blueprints.throttling;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that adapts to the observed latency, in the style of a gradient limiter.
+ * <p>
+ * Latency samples are averaged over short windows and compared with a long-term average of those windows.
+ * While the short-term latency stays within {@code tolerance} times the long-term one, the limit grows by about
+ * its square root per window, the room a healthy backend needs to absorb a queue; when the latency rises above
+ * that, the limit is multiplied by the ratio (at least 0.5), so a backend that slows down sheds load within a few
+ * windows. The limit only grows when the requests in flight actually came close to it. Changes are smoothed and
+ * kept between the minimum and the maximum.
+ * <p>
+ * Admission is a CAS on the in-flight count; only the end of a window takes a lock.
+ */
+final class AdaptiveLimit {
+
+    static final long WINDOW_NANOS = 100_000_000L;
+    /** Windows averaged by the long-term latency, about ten seconds at one window per 100 ms. */
+    private static final double LONG_TERM_WINDOWS = 100;
+    private static final double SMOOTHING = 0.2;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private volatile int limit;
+
+    /** Guarded by this. */
+    private double estimate;
+    private double longTermNanos;
+    private long windowStart = System.nanoTime();
+    private long windowSumNanos;
+    private int windowSamples;
+    private int windowMaxInFlight;
+
+    /**
+     * Constructs the limit.
+     * @param initialLimit Limit before any latency is observed
+     * @param minLimit Lowest limit
+     * @param maxLimit Highest limit
+     * @param tolerance Ratio of short-term to long-term latency accepted before the limit shrinks
+     */
+    AdaptiveLimit(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.tolerance = Math.max(1, tolerance);
+        this.estimate = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.limit = (int) estimate;
+    }
+
+    /**
+     * Admits a request if the requests in flight are below its share of the limit.
+     * @param share Fraction of the limit the request may use; lower for requests that yield to others
+     * @return true if the request was admitted and {@link #release} must be called when it ends
+     */
+    boolean tryAcquire(double share) {
+        int cap = Math.max(1, (int) (limit * share));
+        for (;;) {
+            int current = inFlight.get();
+            if (current >= cap) return false;
+            if (inFlight.compareAndSet(current, current + 1)) return true;
+        }
+    }
+
+    /**
+     * Ends an admitted request.
+     * @param latencyNanos Duration of the request, or a negative value to leave it out of the latency samples
+     */
+    void release(long latencyNanos) {
+        release(latencyNanos, System.nanoTime());
+    }
+
+    /**
+     * Ends an admitted request at the given instant.
+     * @param latencyNanos Duration of the request, or a negative value to leave it out of the latency samples
+     * @param nowNanos Current {@link System#nanoTime()}, which decides when a window ends
+     */
+    void release(long latencyNanos, long nowNanos) {
+        int before = inFlight.getAndDecrement();
+        if (latencyNanos >= 0) sample(latencyNanos, before, nowNanos);
+    }
+
+    int limit() { return limit; }
+
+    int inFlight() { return inFlight.get(); }
+
+    private synchronized void sample(long latencyNanos, int inFlightBefore, long now) {
+        windowSumNanos += latencyNanos;
+        windowSamples++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightBefore);
+        if (now - windowStart < WINDOW_NANOS) return;
+
+        double shortTermNanos = Math.max(1, (double) windowSumNanos / windowSamples);
+        boolean nearLimit = windowMaxInFlight >= estimate / 2;
+        windowStart = now;
+        windowSumNanos = 0;
+        windowSamples = 0;
+        windowMaxInFlight = 0;
+
+        if (longTermNanos == 0) longTermNanos = shortTermNanos;
+        else longTermNanos += (shortTermNanos - longTermNanos) / LONG_TERM_WINDOWS;
+        // After a slow period, let the long-term latency come back down quickly instead of over the whole average
+        if (longTermNanos > 2 * shortTermNanos) longTermNanos *= 0.95;
+
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * longTermNanos / shortTermNanos));
+        double next = estimate * gradient + Math.sqrt(estimate);
+        if (!nearLimit) next = Math.min(next, estimate);
+        estimate = Math.max(minLimit, Math.min(maxLimit, estimate * (1 - SMOOTHING) + next * SMOOTHING));
+        limit = (int) estimate;
+    }
+}
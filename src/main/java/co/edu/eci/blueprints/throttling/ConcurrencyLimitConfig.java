@@ -0,0 +1,38 @@
+package co.edu.eci.blueprints.throttling;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Wires adaptive concurrency limiting in front of the {@code /api/v1/blueprints} controllers,
+ * after the per-principal rate limit so a client over its budget does not take a slot.
+ * Disabled with {@code blueprints.concurrency.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "blueprints.concurrency.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig implements WebMvcConfigurer {
+
+    static final int ORDER = RateLimitConfig.ORDER + 1;
+
+    private final ConcurrencyLimitInterceptor interceptor;
+
+    public ConcurrencyLimitConfig(ObjectMapper mapper, MeterRegistry registry,
+                                  @Value("${blueprints.concurrency.initial-limit:20}") int initialLimit,
+                                  @Value("${blueprints.concurrency.min-limit:4}") int minLimit,
+                                  @Value("${blueprints.concurrency.max-limit:200}") int maxLimit,
+                                  @Value("${blueprints.concurrency.tolerance:2.0}") double tolerance,
+                                  @Value("${blueprints.concurrency.scan-share:0.5}") double scanShare) {
+        this.interceptor = new ConcurrencyLimitInterceptor(
+                new AdaptiveLimit(initialLimit, minLimit, maxLimit, tolerance), scanShare, mapper, registry);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(interceptor).addPathPatterns("/api/v1/blueprints", "/api/v1/blueprints/**").order(ORDER);
+    }
+}
@@ -0,0 +1,87 @@
+package co.edu.eci.blueprints.throttling;
+
+import co.edu.eci.blueprints.api.ApiResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Bounds the blueprint requests in flight with an {@link AdaptiveLimit}, so when the database slows down the
+ * excess requests are answered right away with 503 instead of waiting for a connection and slowing everyone.
+ * <p>
+ * Listings of every blueprint ({@code GET /api/v1/blueprints}, with or without {@code view=summary}) scan the
+ * whole dataset, so they may only use a share of the limit and are shed first; the rest of the limit is kept for
+ * single-blueprint reads and writes. Only the latter are latency samples, since their cost does not grow
+ * with the dataset.
+ */
+public class ConcurrencyLimitInterceptor implements HandlerInterceptor {
+
+    private static final String SCAN_PATTERN = "/api/v1/blueprints";
+    private static final String STARTED = ConcurrencyLimitInterceptor.class.getName() + ".started";
+    private static final String SCAN = ConcurrencyLimitInterceptor.class.getName() + ".scan";
+
+    private final AdaptiveLimit limit;
+    private final double scanShare;
+    private final ObjectMapper mapper;
+    private final Counter scansShed;
+    private final Counter requestsShed;
+
+    ConcurrencyLimitInterceptor(AdaptiveLimit limit, double scanShare, ObjectMapper mapper, MeterRegistry registry) {
+        this.limit = limit;
+        this.scanShare = Math.max(0, Math.min(1, scanShare));
+        this.mapper = mapper;
+        this.scansShed = shed(registry, "scan");
+        this.requestsShed = shed(registry, "single");
+        Gauge.builder("blueprints.concurrency.limit", limit, AdaptiveLimit::limit)
+                .description("Blueprint requests allowed in flight, adapted to the observed latency")
+                .register(registry);
+        Gauge.builder("blueprints.concurrency.in_flight", limit, AdaptiveLimit::inFlight)
+                .description("Blueprint requests in flight")
+                .register(registry);
+    }
+
+    private static Counter shed(MeterRegistry registry, String priority) {
+        return Counter.builder("blueprints.concurrency.shed")
+                .description("Blueprint requests answered with 503 because the concurrency limit was reached")
+                .tag("priority", priority)
+                .register(registry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        boolean scan = "GET".equals(request.getMethod())
+                && SCAN_PATTERN.equals(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE));
+        if (limit.tryAcquire(scan ? scanShare : 1.0)) {
+            request.setAttribute(STARTED, System.nanoTime());
+            request.setAttribute(SCAN, scan);
+            return true;
+        }
+        (scan ? scansShed : requestsShed).increment();
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        mapper.writeValue(response.getOutputStream(),
+                new ApiResponse<>(503, "Server overloaded, retry later", null)); // 503 Service Unavailable
+        return false;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object started = request.getAttribute(STARTED);
+        if (started == null) return;
+        request.removeAttribute(STARTED);
+        boolean scan = Boolean.TRUE.equals(request.getAttribute(SCAN));
+        limit.release(scan ? -1 : System.nanoTime() - (Long) started);
+    }
+}
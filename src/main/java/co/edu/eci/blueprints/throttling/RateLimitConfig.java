@@ -0,0 +1,39 @@
+package co.edu.eci.blueprints.throttling;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Wires per-principal rate limiting in front of the {@code /api/**} controllers.
+ * Disabled with {@code blueprints.rate-limit.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "blueprints.rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfig implements WebMvcConfigurer {
+
+    static final int ORDER = 0;
+
+    private final RateLimitInterceptor interceptor;
+
+    public RateLimitConfig(ObjectMapper mapper, MeterRegistry registry,
+                           @Value("${blueprints.rate-limit.read.per-second:100}") double readsPerSecond,
+                           @Value("${blueprints.rate-limit.read.burst:200}") int readBurst,
+                           @Value("${blueprints.rate-limit.write.per-second:20}") double writesPerSecond,
+                           @Value("${blueprints.rate-limit.write.burst:40}") int writeBurst,
+                           @Value("${blueprints.rate-limit.max-principals:100000}") int maxPrincipals) {
+        this.interceptor = new RateLimitInterceptor(
+                new TokenBuckets(readsPerSecond, readBurst, maxPrincipals),
+                new TokenBuckets(writesPerSecond, writeBurst, maxPrincipals),
+                mapper, registry);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(interceptor).addPathPatterns("/api/**").order(ORDER);
+    }
+}
@@ -0,0 +1,79 @@
+package co.edu.eci.blueprints.throttling;
+
+import co.edu.eci.blueprints.api.ApiResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+
+/**
+ * Limits the request rate of each authenticated principal before the request reaches a controller.
+ * The principal is the JWT subject; reads (GET and HEAD, which need the blueprints.read scope) and writes
+ * (everything else, which needs blueprints.write) draw from separate budgets, so a client flooding
+ * {@code PUT /points} does not lose its reads, and never delays other clients.
+ * A request over the budget is answered with 429 and a {@code Retry-After} header in seconds.
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final TokenBuckets reads;
+    private final TokenBuckets writes;
+    private final ObjectMapper mapper;
+    private final Counter readsRejected;
+    private final Counter writesRejected;
+
+    public RateLimitInterceptor(TokenBuckets reads, TokenBuckets writes, ObjectMapper mapper, MeterRegistry registry) {
+        this.reads = reads;
+        this.writes = writes;
+        this.mapper = mapper;
+        this.readsRejected = rejected(registry, "read");
+        this.writesRejected = rejected(registry, "write");
+        Gauge.builder("blueprints.rate_limit.principals", this, i -> i.reads.size() + i.writes.size())
+                .description("Principals tracked by the read and write budgets")
+                .register(registry);
+    }
+
+    private static Counter rejected(MeterRegistry registry, String budget) {
+        return Counter.builder("blueprints.rate_limit.rejected")
+                .description("Requests answered with 429 because the principal exceeded its budget")
+                .tag("budget", budget)
+                .register(registry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated()) return true;
+        boolean read = "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+        long waitNanos = (read ? reads : writes).tryAcquire(auth.getName(), System.nanoTime());
+        if (waitNanos == 0) return true;
+
+        (read ? readsRejected : writesRejected).increment();
+        long retryAfter = retryAfterSeconds(waitNanos);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        mapper.writeValue(response.getOutputStream(),
+                new ApiResponse<>(429, "Too many requests, retry in " + retryAfter + " s", null)); // 429 Too Many Requests
+        return false;
+    }
+
+    /**
+     * Converts a wait into the value of a {@code Retry-After} header: whole seconds, rounded up, and at least 1.
+     * @param waitNanos Nanoseconds until a token is available, as returned by {@link TokenBuckets#tryAcquire}
+     * @return Seconds the client should wait
+     */
+    static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+    }
+}
@@ -0,0 +1,85 @@
+package co.edu.eci.blueprints.throttling;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets keyed by principal, implemented as the generic cell rate algorithm: each key keeps only its
+ * theoretical arrival time, the instant its bucket would be full again, in an {@link AtomicLong} updated with
+ * compare-and-set. Taking a token is a map lookup and a CAS, with no lock and no allocation for known keys.
+ * <p>
+ * Memory is bounded by the maximum number of keys. A key whose bucket is full is idle and indistinguishable
+ * from a new one, so when the map is full those keys are evicted; if none is idle, new keys share one
+ * overflow bucket until some are.
+ */
+public final class TokenBuckets {
+
+    /**
+     * Minimum time between two scans for idle keys, so a full map of active keys is not scanned on every request.
+     */
+    private static final long EVICTION_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong overflow = new AtomicLong(System.nanoTime());
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final int maxKeys;
+    private final AtomicLong lastEviction = new AtomicLong(System.nanoTime() - EVICTION_INTERVAL_NANOS);
+
+    /**
+     * Constructs the buckets.
+     * @param perSecond Tokens added to each bucket per second
+     * @param burst Capacity of each bucket, the requests allowed at once after a pause
+     * @param maxKeys Maximum number of keys tracked separately
+     */
+    public TokenBuckets(double perSecond, int burst, int maxKeys) {
+        if (perSecond <= 0 || burst < 1) throw new IllegalArgumentException("Rate and burst must be positive");
+        this.intervalNanos = Math.max(1, Math.round(1e9 / perSecond));
+        this.toleranceNanos = intervalNanos * burst;
+        this.maxKeys = Math.max(1, maxKeys);
+    }
+
+    /**
+     * Takes a token from the key's bucket if there is one.
+     * @param key Key of the bucket, such as the principal's name
+     * @param nowNanos Current {@link System#nanoTime()}
+     * @return 0 if a token was taken, otherwise the nanoseconds until one is available
+     */
+    public long tryAcquire(String key, long nowNanos) {
+        AtomicLong arrival = buckets.get(key);
+        if (arrival == null) arrival = track(key, nowNanos);
+        for (;;) {
+            long current = arrival.get();
+            // A bucket that refilled completely starts from now: unused time does not accumulate beyond the burst
+            long next = (current - nowNanos < 0 ? nowNanos : current) + intervalNanos;
+            long wait = next - nowNanos - toleranceNanos;
+            if (wait > 0) return wait;
+            if (arrival.compareAndSet(current, next)) return 0;
+        }
+    }
+
+    /**
+     * Gets the number of keys tracked separately.
+     * @return Keys in the map, idle ones included
+     */
+    public int size() { return buckets.size(); }
+
+    private AtomicLong track(String key, long nowNanos) {
+        if (buckets.size() >= maxKeys) {
+            long last = lastEviction.get();
+            if (nowNanos - last >= EVICTION_INTERVAL_NANOS && lastEviction.compareAndSet(last, nowNanos)) {
+                evictIdle(nowNanos);
+            }
+            if (buckets.size() >= maxKeys) return overflow;
+        }
+        return buckets.computeIfAbsent(key, k -> new AtomicLong(nowNanos));
+    }
+
+    /**
+     * Removes the keys whose bucket is full. A request racing with the removal may be admitted
+     * without its token being recorded, which costs at most one extra token for a key that was idle.
+     */
+    private void evictIdle(long nowNanos) {
+        buckets.values().removeIf(arrival -> arrival.get() - nowNanos <= 0);
+    }
+}
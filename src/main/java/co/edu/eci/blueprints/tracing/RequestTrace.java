@@ -0,0 +1,135 @@
+package co.edu.eci.blueprints.tracing;
+
+import org.aspectj.lang.Signature;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Span tree of the request being handled by the current thread.
+ * Spans are only timestamps and a label until the request ends; the tree is turned into a {@link SpanView}
+ * only when the request is kept as slow, so requests under the threshold pay a few small allocations per span.
+ * When no trace is active (outside a request, or tracing disabled) {@link #span} returns a no-op span.
+ */
+public final class RequestTrace {
+
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+    private static final Span NOOP = new Span(null, null, null);
+
+    private final int maxSpans;
+    private final Span root;
+    private Span current;
+    private int spans;
+    private int droppedSpans;
+
+    private RequestTrace(String name, int maxSpans) {
+        this.maxSpans = maxSpans;
+        this.root = new Span(this, name, null);
+        this.current = root;
+    }
+
+    /**
+     * Starts a trace for the current thread.
+     * @param name Label of the root span
+     * @param maxSpans Maximum number of spans recorded, further spans are counted but dropped
+     * @return The new trace
+     */
+    static RequestTrace begin(String name, int maxSpans) {
+        RequestTrace trace = new RequestTrace(name, maxSpans);
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    /**
+     * Ends the trace of the current thread.
+     * @return Duration of the root span in nanoseconds
+     */
+    long end() {
+        CURRENT.remove();
+        root.close();
+        return root.endNanos - root.startNanos;
+    }
+
+    /**
+     * Opens a child span of the current span of this thread's trace.
+     * @param kind Kind of work, such as "service" or "jdbc.execute"
+     * @param detail What is being done, such as a {@link Signature}; may be null
+     * @return The span, to be closed when the work ends
+     */
+    public static Span span(String kind, Object detail) {
+        RequestTrace trace = CURRENT.get();
+        if (trace == null) return NOOP;
+        if (trace.spans >= trace.maxSpans) {
+            trace.droppedSpans++;
+            return NOOP;
+        }
+        trace.spans++;
+        Span span = new Span(trace, kind, detail);
+        trace.current.child(span);
+        trace.current = span;
+        return span;
+    }
+
+    /**
+     * Renames the root span, used once the matched route is known.
+     */
+    void rename(String name) { root.kind = name; }
+
+    int droppedSpans() { return droppedSpans; }
+
+    SpanView view() { return root.view(root.startNanos); }
+
+    /**
+     * A timed unit of work inside a request.
+     */
+    public static final class Span implements AutoCloseable {
+        private final RequestTrace trace;
+        private final Span parent;
+        private String kind;
+        private final Object detail;
+        private final long startNanos = System.nanoTime();
+        private long endNanos;
+        private List<Span> children;
+
+        private Span(RequestTrace trace, String kind, Object detail) {
+            this.trace = trace;
+            this.parent = trace == null ? null : trace.current;
+            this.kind = kind;
+            this.detail = detail;
+        }
+
+        private void child(Span span) {
+            if (children == null) children = new ArrayList<>(4);
+            children.add(span);
+        }
+
+        @Override
+        public void close() {
+            if (trace == null || endNanos != 0) return;
+            endNanos = System.nanoTime();
+            if (trace.current == this && parent != null) trace.current = parent;
+        }
+
+        private SpanView view(long originNanos) {
+            String name = switch (detail) {
+                case null -> kind;
+                case Signature s -> kind + " " + s.getDeclaringType().getSimpleName() + "." + s.getName();
+                default -> kind + " " + detail;
+            };
+            long end = endNanos == 0 ? System.nanoTime() : endNanos;
+            List<SpanView> childViews = children == null ? List.of()
+                    : children.stream().map(c -> c.view(originNanos)).toList();
+            return new SpanView(name, (startNanos - originNanos) / 1e6, (end - startNanos) / 1e6, childViews);
+        }
+    }
+
+    /**
+     * Serializable form of a span.
+     *
+     * @param name What was done
+     * @param startMs Start relative to the beginning of the request, in milliseconds
+     * @param durationMs Duration in milliseconds
+     * @param children Spans nested in this one, in start order
+     */
+    public record SpanView(String name, double startMs, double durationMs, List<SpanView> children) {}
+}
@@ -0,0 +1,43 @@
+package co.edu.eci.blueprints.tracing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Traces every request and hands the span tree to the {@link SlowRequestLog} when the request is slow.
+ * Registered ahead of the security filters so JWT verification is part of the trace.
+ */
+public class RequestTracingFilter extends OncePerRequestFilter {
+
+    private final SlowRequestLog log;
+    private final int maxSpans;
+
+    public RequestTracingFilter(SlowRequestLog log, int maxSpans) {
+        this.log = log;
+        this.maxSpans = maxSpans;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestTrace trace = RequestTrace.begin(request.getMethod() + " " + request.getRequestURI(), maxSpans);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long duration = trace.end();
+            if (log.isSlow(duration)) {
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                if (pattern != null) trace.rename(request.getMethod() + " " + pattern);
+                log.add(new SlowRequestLog.SlowRequest(Instant.now(), request.getMethod(), request.getRequestURI(),
+                        response.getStatus(), duration / 1e6, trace.droppedSpans(), trace.view()));
+            }
+        }
+    }
+}
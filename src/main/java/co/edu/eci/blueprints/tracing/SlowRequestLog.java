@@ -0,0 +1,64 @@
+package co.edu.eci.blueprints.tracing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps the span trees of the most recent requests that took longer than the configured threshold.
+ */
+@Component
+public class SlowRequestLog {
+
+    private final long thresholdNanos;
+    private final int capacity;
+    private final Deque<SlowRequest> requests = new ArrayDeque<>();
+
+    /**
+     * Constructs the log.
+     * @param thresholdMs Duration from which a request is kept
+     * @param capacity Number of slow requests kept, oldest are discarded first
+     */
+    public SlowRequestLog(@Value("${blueprints.tracing.slow-threshold-ms:500}") long thresholdMs,
+                          @Value("${blueprints.tracing.capacity:100}") int capacity) {
+        this.thresholdNanos = thresholdMs * 1_000_000;
+        this.capacity = capacity;
+    }
+
+    boolean isSlow(long durationNanos) { return durationNanos >= thresholdNanos; }
+
+    synchronized void add(SlowRequest request) {
+        if (requests.size() == capacity) requests.removeLast();
+        requests.addFirst(request);
+    }
+
+    /**
+     * Gets the slow requests kept, most recent first.
+     * @return Slow requests
+     */
+    public synchronized List<SlowRequest> recent() { return new ArrayList<>(requests); }
+
+    /**
+     * Discards every slow request kept.
+     */
+    public synchronized void clear() { requests.clear(); }
+
+    /**
+     * A request slower than the threshold.
+     *
+     * @param timestamp When the request ended
+     * @param method HTTP method
+     * @param path Request path
+     * @param status Response status
+     * @param durationMs Total duration in milliseconds
+     * @param droppedSpans Spans not recorded because the trace reached its span limit
+     * @param trace Span tree of the request
+     */
+    public record SlowRequest(Instant timestamp, String method, String path, int status, double durationMs,
+                              int droppedSpans, RequestTrace.SpanView trace) {}
+}
@@ -0,0 +1,33 @@
+package co.edu.eci.blueprints.tracing;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint listing the span trees of recent slow requests: {@code GET /actuator/slowrequests};
+ * {@code DELETE} clears them.
+ */
+@Component
+@Endpoint(id = "slowrequests")
+public class SlowRequestsEndpoint {
+
+    private final SlowRequestLog log;
+
+    public SlowRequestsEndpoint(SlowRequestLog log) {
+        this.log = log;
+    }
+
+    @ReadOperation
+    public List<SlowRequestLog.SlowRequest> slowRequests() {
+        return log.recent();
+    }
+
+    @DeleteOperation
+    public void clear() {
+        log.clear();
+    }
+}
@@ -0,0 +1,59 @@
+package co.edu.eci.blueprints.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Wires slow-request tracing: the request filter and a JSON converter that traces response serialization.
+ * Disabled with {@code blueprints.tracing.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "blueprints.tracing.enabled", havingValue = "true", matchIfMissing = true)
+public class TracingConfig implements WebMvcConfigurer {
+
+    @Bean
+    FilterRegistrationBean<RequestTracingFilter> requestTracingFilter(SlowRequestLog log,
+            @Value("${blueprints.tracing.max-spans:1000}") int maxSpans) {
+        FilterRegistrationBean<RequestTracingFilter> registration =
+                new FilterRegistrationBean<>(new RequestTracingFilter(log, maxSpans));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        for (int i = 0; i < converters.size(); i++) {
+            if (converters.get(i) instanceof MappingJackson2HttpMessageConverter jackson) {
+                converters.set(i, new TracingJacksonConverter(jackson.getObjectMapper()));
+            }
+        }
+    }
+
+    /**
+     * Jackson converter that records response serialization as a "json.write" span.
+     */
+    static class TracingJacksonConverter extends MappingJackson2HttpMessageConverter {
+        TracingJacksonConverter(ObjectMapper mapper) { super(mapper); }
+
+        @Override
+        protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+                throws IOException {
+            try (RequestTrace.Span span = RequestTrace.span("json.write", null)) {
+                super.writeInternal(object, type, outputMessage);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package co.edu.eci.blueprints.tracing;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Hibernate session listener that adds JDBC and flush spans to the current request trace, so statements issued
+ * by lazy loading outside the persistence layer show up where they happen.
+ * Registered through {@code hibernate.session.events.auto}; Hibernate creates one instance per session.
+ */
+public class TracingSessionEventListener extends BaseSessionEventListener {
+
+    private RequestTrace.Span connection;
+    private RequestTrace.Span statement;
+    private RequestTrace.Span flush;
+
+    @Override
+    public void jdbcConnectionAcquisitionStart() { connection = RequestTrace.span("jdbc.connection", null); }
+
+    @Override
+    public void jdbcConnectionAcquisitionEnd() { close(connection); }
+
+    @Override
+    public void jdbcExecuteStatementStart() { statement = RequestTrace.span("jdbc.execute", null); }
+
+    @Override
+    public void jdbcExecuteStatementEnd() { close(statement); }
+
+    @Override
+    public void jdbcExecuteBatchStart() { statement = RequestTrace.span("jdbc.batch", null); }
+
+    @Override
+    public void jdbcExecuteBatchEnd() { close(statement); }
+
+    @Override
+    public void flushStart() { flush = RequestTrace.span("hibernate.flush", null); }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) { close(flush); }
+
+    private static void close(RequestTrace.Span span) {
+        if (span != null) span.close();
+    }
+}
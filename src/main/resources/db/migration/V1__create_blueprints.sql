@@ -0,0 +1,26 @@
+-- Schema as previously generated by Hibernate (ddl-auto=update).
+-- IF NOT EXISTS lets databases created by Hibernate be adopted in place (spring.flyway.baseline-on-migrate).
+
+CREATE TABLE IF NOT EXISTS blueprints (
+    id          bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    author      varchar(255) NOT NULL,
+    name        varchar(255) NOT NULL
+);
+
+-- Aggregate statistics columns (BlueprintStats), missing in databases created before they were added
+ALTER TABLE blueprints ADD COLUMN IF NOT EXISTS point_count integer DEFAULT 0;
+ALTER TABLE blueprints ADD COLUMN IF NOT EXISTS min_x integer DEFAULT 0;
+ALTER TABLE blueprints ADD COLUMN IF NOT EXISTS min_y integer DEFAULT 0;
+ALTER TABLE blueprints ADD COLUMN IF NOT EXISTS max_x integer DEFAULT 0;
+ALTER TABLE blueprints ADD COLUMN IF NOT EXISTS max_y integer DEFAULT 0;
+ALTER TABLE blueprints ADD COLUMN IF NOT EXISTS sum_x bigint DEFAULT 0;
+ALTER TABLE blueprints ADD COLUMN IF NOT EXISTS sum_y bigint DEFAULT 0;
+ALTER TABLE blueprints ADD COLUMN IF NOT EXISTS last_x integer DEFAULT 0;
+ALTER TABLE blueprints ADD COLUMN IF NOT EXISTS last_y integer DEFAULT 0;
+ALTER TABLE blueprints ADD COLUMN IF NOT EXISTS path_length double precision DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS blueprint_points (
+    blueprint_id bigint NOT NULL REFERENCES blueprints (id),
+    x            integer,
+    y            integer
+);
@@ -0,0 +1,45 @@
+-- (author, name) identifies a blueprint. Duplicates could be stored before this constraint existed;
+-- the oldest row of each key is kept.
+DELETE FROM blueprint_points p
+    USING blueprints b, blueprints keep
+    WHERE p.blueprint_id = b.id AND keep.author = b.author AND keep.name = b.name AND keep.id < b.id;
+DELETE FROM blueprints b
+    USING blueprints keep
+    WHERE keep.author = b.author AND keep.name = b.name AND keep.id < b.id;
+
+-- Unique index on (author, name): serves lookups by key and, as a prefix, lookups by author
+ALTER TABLE blueprints ADD CONSTRAINT uk_blueprints_author_name UNIQUE (author, name);
+
+-- Points keep their position in an order column; existing rows are numbered in insertion order.
+-- The primary key (blueprint_id, point_order) serves loading a blueprint's points in order.
+ALTER TABLE blueprint_points ADD COLUMN point_order integer;
+UPDATE blueprint_points p
+    SET point_order = o.position
+    FROM (SELECT ctid, row_number() OVER (PARTITION BY blueprint_id ORDER BY ctid) - 1 AS position
+          FROM blueprint_points) o
+    WHERE p.ctid = o.ctid;
+ALTER TABLE blueprint_points ALTER COLUMN point_order SET NOT NULL;
+ALTER TABLE blueprint_points ADD CONSTRAINT pk_blueprint_points PRIMARY KEY (blueprint_id, point_order);
+
+-- The statistics columns were added with DEFAULT 0 to tables that may already hold points; compute them
+-- once from the points, in point order. Blueprints without points keep the empty statistics.
+UPDATE blueprints b
+    SET point_count = s.point_count,
+        min_x = s.min_x, min_y = s.min_y, max_x = s.max_x, max_y = s.max_y,
+        sum_x = s.sum_x, sum_y = s.sum_y,
+        last_x = s.last_x, last_y = s.last_y,
+        path_length = s.path_length
+    FROM (SELECT blueprint_id,
+                 count(*) AS point_count,
+                 min(x) AS min_x, min(y) AS min_y, max(x) AS max_x, max(y) AS max_y,
+                 sum(x) AS sum_x, sum(y) AS sum_y,
+                 (array_agg(x ORDER BY point_order DESC))[1] AS last_x,
+                 (array_agg(y ORDER BY point_order DESC))[1] AS last_y,
+                 coalesce(sum(segment), 0) AS path_length
+          FROM (SELECT blueprint_id, point_order, x, y,
+                       sqrt(power(x::double precision - lag(x) OVER w, 2)
+                            + power(y::double precision - lag(y) OVER w, 2)) AS segment
+                FROM blueprint_points
+                WINDOW w AS (PARTITION BY blueprint_id ORDER BY point_order)) p
+          GROUP BY blueprint_id) s
+    WHERE b.id = s.blueprint_id;
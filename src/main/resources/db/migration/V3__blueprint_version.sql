@@ -0,0 +1,3 @@
+-- Version counter for optimistic locking: every change to a blueprint or its points increments it,
+-- and an update is rejected when the row was changed since it was read.
+ALTER TABLE blueprints ADD COLUMN version bigint NOT NULL DEFAULT 0;
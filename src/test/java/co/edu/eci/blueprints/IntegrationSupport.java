@@ -0,0 +1,125 @@
+package co.edu.eci.blueprints;
+
+import co.edu.eci.blueprints.security.RsaKeyProperties;
+import io.restassured.specification.RequestSpecification;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+/**
+ * Helpers for the integration tests: real PostgreSQL servers started from the binaries that Maven downloads,
+ * and instances of the API running against them on random ports.
+ */
+public final class IntegrationSupport {
+
+    /**
+     * Longest wait for something another thread or server does, such as delivering a notification.
+     */
+    private static final long AWAIT_MS = 10_000;
+
+    private IntegrationSupport() {}
+
+    /**
+     * Skips the calling tests when running as root, since PostgreSQL refuses to start as root.
+     */
+    public static void assumePostgresCanRun() {
+        assumeFalse("root".equals(System.getProperty("user.name")), "PostgreSQL refuses to run as root");
+    }
+
+    /**
+     * Starts a PostgreSQL server on a data directory, which is initialized if it is empty and kept when the
+     * server is closed, so it can be copied or started again.
+     * @param dataDir Data directory
+     * @param port Port to listen on, or 0 for a free one
+     * @return The running server; the superuser is {@code postgres}, with no password
+     */
+    public static EmbeddedPostgres startPostgres(Path dataDir, int port) throws IOException {
+        EmbeddedPostgres.Builder builder = EmbeddedPostgres.builder()
+                .setDataDirectory(dataDir)
+                .setCleanDataDirectory(false);
+        if (port > 0) builder.setPort(port);
+        return builder.start();
+    }
+
+    /**
+     * Starts an instance of the API on a free port, with the default profile unless the arguments choose another.
+     * @param postgres Server holding the primary database
+     * @param args Additional command-line arguments, such as {@code --spring.profiles.active=replica}
+     * @return The application context, to be closed by the test
+     */
+    public static ConfigurableApplicationContext startApi(EmbeddedPostgres postgres, String... args) {
+        List<String> all = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=" + jdbcUrl(postgres),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=",
+                "--blueprints.rate-limit.enabled=false"));
+        all.addAll(List.of(args));
+        return SpringApplication.run(BlueprintsApiApplication.class, all.toArray(String[]::new));
+    }
+
+    /**
+     * JDBC URL of the {@code postgres} database of a server.
+     */
+    public static String jdbcUrl(EmbeddedPostgres postgres) {
+        return "jdbc:postgresql://localhost:" + postgres.getPort() + "/postgres";
+    }
+
+    /**
+     * Starts a request to an instance of the API, authenticated with a token that instance issued.
+     * @param api The instance
+     * @param scope Space separated scopes of the token
+     * @return Request specification bound to the instance's port
+     */
+    public static RequestSpecification request(ConfigurableApplicationContext api, String scope) {
+        return given()
+                .port(((WebServerApplicationContext) api).getWebServer().getPort())
+                .auth().oauth2(token(api, scope));
+    }
+
+    /**
+     * Issues a token the way {@code /auth/login} does, but with any scopes, such as {@code blueprints.addPoint},
+     * which no user of the login receives.
+     */
+    public static String token(ConfigurableApplicationContext api, String scope) {
+        Instant now = Instant.now();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .issuer(api.getBean(RsaKeyProperties.class).issuer())
+                .issuedAt(now)
+                .expiresAt(now.plusSeconds(600))
+                .subject("student")
+                .claim("scope", scope)
+                .build();
+        JwsHeader jws = JwsHeader.with(() -> "RS256").build();
+        return api.getBean(JwtEncoder.class).encode(JwtEncoderParameters.from(jws, claims)).getTokenValue();
+    }
+
+    /**
+     * Waits until a condition holds, failing the test if it does not within a few seconds.
+     * @param what Description of the condition, for the failure message
+     * @param condition Condition polled until it holds
+     */
+    public static void await(String what, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + AWAIT_MS * 1_000_000L;
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) fail("Timed out waiting until " + what);
+            Thread.sleep(50);
+        }
+    }
+}
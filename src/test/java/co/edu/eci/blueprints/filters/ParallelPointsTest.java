@@ -0,0 +1,105 @@
+package co.edu.eci.blueprints.filters;
+
+import co.edu.eci.blueprints.model.Blueprint;
+import co.edu.eci.blueprints.model.BlueprintSummary;
+import co.edu.eci.blueprints.model.Point;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static co.edu.eci.blueprints.filters.ParallelPoints.CHUNKS_PER_WORKER;
+import static co.edu.eci.blueprints.filters.ParallelPoints.MIN_CHUNK;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The parallel mode of the point filters against their sequential loop, on blueprints whose chunks have odd
+ * sizes and whose runs of duplicate points cross the edges between chunks.
+ */
+class ParallelPointsTest {
+
+    /**
+     * Blueprint sizes are chosen so that the number of chunks does not divide the number of points.
+     */
+    @ParameterizedTest
+    @CsvSource({
+            "4, 3, 7",     // 3 chunks, below the workers' share
+            "4, 5, 3",     // 5 chunks
+            "4, 20, 1",    // 16 chunks, the workers' share
+            "3, 13, 5"     // 12 chunks of a three-worker pool
+    })
+    void redundancyKeepsTheSamePointsAsTheSequentialFilter(int parallelism, int minChunks, int extra) {
+        int size = minChunks * MIN_CHUNK + extra;
+        List<Point> points = pointsWithRunsAcrossChunkEdges(size, chunks(parallelism, size));
+        RedundancyFilter sequential = new RedundancyFilter(0, 0);
+        RedundancyFilter parallel = new RedundancyFilter(parallelism, 1);
+        try {
+            Blueprint bp = new Blueprint("ana", "house", points);
+            assertSameBlueprint(sequential.apply(bp), parallel.apply(bp));
+        } finally {
+            parallel.close();
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "4, 3, 7",
+            "4, 5, 3",
+            "4, 20, 1",
+            "3, 13, 5"
+    })
+    void undersamplingKeepsTheSamePointsAsTheSequentialFilter(int parallelism, int minChunks, int extra) {
+        int size = minChunks * MIN_CHUNK + extra;
+        List<Point> points = pointsWithRunsAcrossChunkEdges(size, chunks(parallelism, size));
+        UndersamplingFilter sequential = new UndersamplingFilter(0, 0);
+        UndersamplingFilter parallel = new UndersamplingFilter(parallelism, 1);
+        try {
+            Blueprint bp = new Blueprint("ana", "house", points);
+            assertSameBlueprint(sequential.apply(bp), parallel.apply(bp));
+        } finally {
+            parallel.close();
+        }
+    }
+
+    private static int chunks(int parallelism, int size) {
+        return Math.max(1, Math.min(parallelism * CHUNKS_PER_WORKER, size / MIN_CHUNK));
+    }
+
+    /**
+     * A random walk over a small grid, so that duplicates also occur by chance, with a run of equal points
+     * around every chunk edge: starting before it, at it, or ending right on it.
+     */
+    private static List<Point> pointsWithRunsAcrossChunkEdges(int size, int chunks) {
+        Random random = new Random(size);
+        List<Point> points = new ArrayList<>(size);
+        int x = 0;
+        int y = 0;
+        for (int i = 0; i < size; i++) {
+            if (random.nextInt(4) != 0) {
+                x = Math.floorMod(x + random.nextInt(3) - 1, 8);
+                y = Math.floorMod(y + random.nextInt(3) - 1, 8);
+            }
+            points.add(new Point(x, y));
+        }
+        for (int k = 1; k < chunks; k++) {
+            int edge = (int) ((long) size * k / chunks);
+            int from = edge - k % 3;
+            int to = edge + 1 + k % 2;
+            Point repeated = new Point(100 + k, -k);
+            for (int i = from; i < to; i++) points.set(i, repeated);
+        }
+        return points;
+    }
+
+    private static void assertSameBlueprint(Blueprint expected, Blueprint actual) {
+        assertEquals(expected.getPoints(), actual.getPoints());
+        BlueprintSummary want = expected.summary();
+        BlueprintSummary got = actual.summary();
+        // The chunks' path lengths are added in a different order, so the last bits may differ
+        assertEquals(want.pathLength(), got.pathLength(), want.pathLength() * 1e-9);
+        assertEquals(want, new BlueprintSummary(got.author(), got.name(), got.pointCount(),
+                got.minX(), got.minY(), got.maxX(), got.maxY(), got.centroidX(), got.centroidY(), want.pathLength()));
+    }
+}
@@ -0,0 +1,221 @@
+package co.edu.eci.blueprints.persistence;
+
+import co.edu.eci.blueprints.model.Blueprint;
+import co.edu.eci.blueprints.model.Point;
+import co.edu.eci.blueprints.persistence.BlueprintJournal.FsyncPolicy;
+import co.edu.eci.blueprints.persistence.BlueprintJournal.SnapshotEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Recovery of the journal engine from files in a temporary directory: what a clean shutdown, a crash in the
+ * middle of a write, a damaged older segment and a snapshot each leave behind.
+ */
+class BlueprintJournalTest {
+
+    private static final long SEGMENT_MAX_BYTES = 1 << 20;
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Records the changes replayed, one line each.
+     */
+    private static final class Recorder implements BlueprintJournal.Visitor {
+        final List<String> changes = new ArrayList<>();
+
+        @Override
+        public void onSave(String author, String name, List<Point> points) {
+            changes.add("save " + author + "/" + name + " " + points);
+        }
+
+        @Override
+        public void onPoint(String author, String name, int x, int y) {
+            changes.add("point " + author + "/" + name + " " + x + "," + y);
+        }
+    }
+
+    @Test
+    void savesAndAppendsComeBackAfterReopening() throws Exception {
+        JournalBlueprintPersistence persistence = open();
+        persistence.saveBlueprint(new Blueprint("ana", "house", List.of(new Point(0, 0), new Point(3, 4))));
+        persistence.addPoint("ana", "house", 6, 8);
+        persistence.saveBlueprint(new Blueprint("ana", "shed", List.of()));
+        persistence.addPoint("ana", "shed", 1, 1);
+        persistence.addPoint("ana", "house", 6, 0);
+        persistence.shutdown();
+
+        JournalBlueprintPersistence reopened = open();
+        try {
+            assertEquals(List.of(new Point(0, 0), new Point(3, 4), new Point(6, 8), new Point(6, 0)),
+                    reopened.getBlueprint("ana", "house").getPoints());
+            assertEquals(List.of(new Point(1, 1)), reopened.getBlueprint("ana", "shed").getPoints());
+            assertEquals(persistence.getBlueprintSummary("ana", "house"), reopened.getBlueprintSummary("ana", "house"));
+        } finally {
+            reopened.shutdown();
+        }
+    }
+
+    @Test
+    void concurrentAppendsAreVisibleInJournalOrder() throws Exception {
+        JournalBlueprintPersistence persistence = open();
+        try {
+            persistence.saveBlueprint(new Blueprint("ana", "house", List.of()));
+            Thread[] writers = new Thread[4];
+            for (int t = 0; t < writers.length; t++) {
+                int id = t;
+                writers[t] = Thread.ofPlatform().start(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        try {
+                            persistence.addPoint("ana", "house", id, i);
+                        } catch (BlueprintNotFoundException | BlueprintPersistenceException e) {
+                            throw new AssertionError(e);
+                        }
+                    }
+                });
+            }
+            for (Thread writer : writers) writer.join();
+
+            // Every append was acknowledged, so its record is durable and can be read back already
+            Recorder replayed = new Recorder();
+            BlueprintJournal.replay(dir, 0, replayed);
+            List<String> visible = persistence.getBlueprint("ana", "house").getPoints().stream()
+                    .map(p -> "point ana/house " + p.x() + "," + p.y())
+                    .toList();
+            assertEquals(400, visible.size());
+            assertEquals(replayed.changes.subList(1, replayed.changes.size()), visible);
+        } finally {
+            persistence.shutdown();
+        }
+    }
+
+    @Test
+    void recordsComeBackInJournalOrder() throws Exception {
+        try (BlueprintJournal journal = journal(0)) {
+            journal.sync(journal.appendSave(new Blueprint("ana", "house", List.of(new Point(1, 2)))));
+            journal.sync(journal.appendPoint("ana", "house", 3, 4));
+            journal.sync(journal.appendPoint("ana", "house", 5, 6));
+        }
+        Recorder replayed = new Recorder();
+        assertEquals(1, BlueprintJournal.replay(dir, 0, replayed));
+        assertEquals(List.of(
+                "save ana/house [Point[x=1, y=2]]",
+                "point ana/house 3,4",
+                "point ana/house 5,6"), replayed.changes);
+    }
+
+    @Test
+    void tornFinalRecordIsTruncatedAndEarlierRecordsSurvive() throws Exception {
+        try (BlueprintJournal journal = journal(0)) {
+            journal.appendSave(new Blueprint("ana", "house", List.of()));
+            journal.appendPoint("ana", "house", 1, 1);
+            journal.sync(journal.appendPoint("ana", "house", 2, 2));
+        }
+        Path segment = onlySegment();
+        long complete = Files.size(segment);
+        try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            ch.truncate(complete - 3);
+        }
+
+        Recorder replayed = new Recorder();
+        BlueprintJournal.replay(dir, 0, replayed);
+        assertEquals(List.of("save ana/house []", "point ana/house 1,1"), replayed.changes);
+        long truncated = Files.size(segment);
+        assertEquals(complete - recordBytes("ana", "house", 8), truncated);
+
+        // The truncated segment replays cleanly, and a new segment follows it
+        Recorder again = new Recorder();
+        assertEquals(1, BlueprintJournal.replay(dir, 0, again));
+        assertEquals(replayed.changes, again.changes);
+        assertEquals(truncated, Files.size(segment));
+    }
+
+    @Test
+    void crcMismatchInAnOlderSegmentFailsRecovery() throws Exception {
+        try (BlueprintJournal journal = journal(0)) {
+            journal.sync(journal.appendSave(new Blueprint("ana", "house", List.of())));
+            journal.sync(journal.appendPoint("ana", "house", 1, 1));
+            journal.rollSegment();
+            journal.sync(journal.appendPoint("ana", "house", 2, 2));
+        }
+        Path older = segments().get(0);
+        try (FileChannel ch = FileChannel.open(older, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The last byte of the first record's payload, one of the point count's bytes
+            ByteBuffer b = ByteBuffer.allocate(1);
+            long at = recordBytes("ana", "house", 4) - 1;
+            ch.read(b, at);
+            b.put(0, (byte) (b.get(0) ^ 1)).rewind();
+            ch.write(b, at);
+        }
+        long size = Files.size(older);
+
+        IOException e = assertThrows(IOException.class, () -> BlueprintJournal.replay(dir, 0, new Recorder()));
+        assertEquals("Corrupt journal record at byte 0 of " + older + ", followed by newer segments", e.getMessage());
+        assertEquals(size, Files.size(older), "A segment followed by newer records is never truncated");
+    }
+
+    @Test
+    void snapshotIsFollowedOnlyByTheNewerSegments() throws Exception {
+        Blueprint house = new Blueprint("ana", "house", List.of(new Point(1, 1)));
+        try (BlueprintJournal journal = journal(0)) {
+            journal.sync(journal.appendSave(house));
+            house.addPoint(new Point(2, 2));
+            journal.sync(journal.appendPoint("ana", "house", 2, 2));
+            long next = journal.rollSegment();
+            BlueprintJournal.writeSnapshot(dir, next, List.of(new SnapshotEntry(house, 2)));
+            journal.sync(journal.appendPoint("ana", "house", 3, 3));
+        }
+        // The covered segment is still there, as after a crash before it was deleted
+        assertEquals(2, segments().size());
+
+        Recorder replayed = new Recorder();
+        long from = BlueprintJournal.readSnapshot(dir, replayed);
+        assertEquals(1, from);
+        assertEquals(2, BlueprintJournal.replay(dir, from, replayed));
+        assertEquals(List.of(
+                "save ana/house [Point[x=1, y=1], Point[x=2, y=2]]",
+                "point ana/house 3,3"), replayed.changes);
+    }
+
+    private JournalBlueprintPersistence open() throws IOException {
+        JournalBlueprintPersistence persistence = new JournalBlueprintPersistence(
+                dir, FsyncPolicy.ALWAYS, 50, SEGMENT_MAX_BYTES, 3600, Long.MAX_VALUE);
+        persistence.recover();
+        return persistence;
+    }
+
+    private BlueprintJournal journal(long firstSegment) throws IOException {
+        return new BlueprintJournal(dir, firstSegment, FsyncPolicy.ALWAYS, 50, SEGMENT_MAX_BYTES);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (var files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".log")).sorted().toList();
+        }
+    }
+
+    private Path onlySegment() throws IOException {
+        List<Path> segments = segments();
+        assertEquals(1, segments.size());
+        return segments.get(0);
+    }
+
+    /**
+     * Size of a record: header, type, author and name, and the given bytes of points.
+     */
+    private static long recordBytes(String author, String name, int pointBytes) {
+        return 8 + 1 + 4 + author.length() + 4 + name.length() + pointBytes;
+    }
+}
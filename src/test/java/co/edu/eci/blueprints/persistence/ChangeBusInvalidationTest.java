@@ -0,0 +1,138 @@
+package co.edu.eci.blueprints.persistence;
+
+import co.edu.eci.blueprints.IntegrationSupport;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+import static co.edu.eci.blueprints.IntegrationSupport.await;
+import static co.edu.eci.blueprints.IntegrationSupport.request;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Two instances of the API on one PostgreSQL database: a change made through one must invalidate the response
+ * cache and the negative lookup cache of the other through {@link PostgresChangeBus}. Every cache is configured
+ * to keep entries for a minute, so within the few seconds the test waits only an invalidation can make the
+ * other instance see the change.
+ */
+class ChangeBusInvalidationTest {
+
+    private static final String SCOPE = "blueprints.read blueprints.write blueprints.addPoint";
+
+    @TempDir
+    static Path dir;
+
+    private static EmbeddedPostgres postgres;
+    private static ConfigurableApplicationContext a;
+    private static ConfigurableApplicationContext b;
+
+    @BeforeAll
+    static void start() throws Exception {
+        IntegrationSupport.assumePostgresCanRun();
+        postgres = IntegrationSupport.startPostgres(dir.resolve("data"), 0);
+        String[] args = {
+                "--blueprints.negative-cache.ttl-ms=60000",
+                "--blueprints.negative-cache.notified-ttl-ms=60000",
+                "--blueprints.response-cache.disconnected-ttl-ms=60000",
+                "--blueprints.invalidation.reconnect-ms=100"};
+        a = IntegrationSupport.startApi(postgres, args);
+        b = IntegrationSupport.startApi(postgres, args);
+        await("both instances listen for changes", () -> connected(a) && connected(b));
+    }
+
+    @AfterAll
+    static void stop() throws Exception {
+        if (b != null) b.close();
+        if (a != null) a.close();
+        if (postgres != null) postgres.close();
+    }
+
+    @Test
+    void saveInvalidatesTheOtherInstanceNegativeCache() throws Exception {
+        assertEquals(404, get(b, "bus", "created").statusCode());
+        create(a, "bus", "created");
+        await("the other instance finds the new blueprint", () -> get(b, "bus", "created").statusCode() == 200);
+    }
+
+    @Test
+    void appendInvalidatesTheOtherInstanceResponseCache() throws Exception {
+        create(a, "bus", "appended");
+        String etag = get(b, "bus", "appended").header("ETag");
+        assertEquals(etag, get(b, "bus", "appended").header("ETag"));
+        Response put = request(a, SCOPE)
+                .contentType(ContentType.JSON)
+                .body(Map.of("x", 5, "y", 5))
+                .put("/api/v1/blueprints/{author}/{name}/points", "bus", "appended");
+        assertEquals(201, put.statusCode());
+        await("the other instance serves the new point", () -> points(get(b, "bus", "appended")) == 2);
+    }
+
+    /**
+     * Changes written straight to the database send no notification, like those published while an instance
+     * was disconnected. Dropping the listening connections must reset the caches, and once reconnected the
+     * instances must deliver changes again.
+     */
+    @Test
+    void lostConnectionResetsTheCachesAndReconnects() throws Exception {
+        create(a, "reset", "cached");
+        assertEquals(1, points(get(b, "reset", "cached")));
+        assertEquals(404, get(b, "reset", "missing").statusCode());
+
+        execute("INSERT INTO blueprints (author, name) VALUES ('reset', 'missing')");
+        execute("INSERT INTO blueprint_points (blueprint_id, point_order, x, y) "
+                + "SELECT id, point_count, 9, 9 FROM blueprints WHERE author = 'reset' AND name = 'cached'");
+        execute("UPDATE blueprints SET point_count = point_count + 1 WHERE author = 'reset' AND name = 'cached'");
+        // Not notified, so both caches still answer
+        assertEquals(1, points(get(b, "reset", "cached")));
+        assertEquals(404, get(b, "reset", "missing").statusCode());
+
+        execute("SELECT pg_terminate_backend(pid) FROM pg_stat_activity "
+                + "WHERE application_name = 'blueprints-invalidation'");
+        await("the cached body is dropped", () -> points(get(b, "reset", "cached")) == 2);
+        await("the cached miss is dropped", () -> get(b, "reset", "missing").statusCode() == 200);
+        await("both instances listen again", () -> connected(a) && connected(b));
+
+        assertEquals(404, get(b, "reset", "later").statusCode());
+        create(a, "reset", "later");
+        await("the other instance finds the new blueprint", () -> get(b, "reset", "later").statusCode() == 200);
+    }
+
+    private static void create(ConfigurableApplicationContext api, String author, String name) {
+        Response response = request(api, SCOPE)
+                .contentType(ContentType.JSON)
+                .body(Map.of("author", author, "name", name, "points", List.of(Map.of("x", 1, "y", 1))))
+                .post("/api/v1/blueprints");
+        assertEquals(201, response.statusCode());
+    }
+
+    private static Response get(ConfigurableApplicationContext api, String author, String name) {
+        return request(api, SCOPE).get("/api/v1/blueprints/{author}/{name}", author, name);
+    }
+
+    private static int points(Response response) {
+        return response.jsonPath().getList("data.points").size();
+    }
+
+    private static boolean connected(ConfigurableApplicationContext api) {
+        return api.getBean(MeterRegistry.class).get("blueprints.invalidation.connected").gauge().value() == 1;
+    }
+
+    private static void execute(String sql) throws SQLException {
+        try (Connection c = postgres.getPostgresDatabase().getConnection(); Statement st = c.createStatement()) {
+            st.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package co.edu.eci.blueprints.persistence;
+
+import co.edu.eci.blueprints.IntegrationSupport;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the plans PostgreSQL chooses for the statements Hibernate actually generates for the summary and lookup
+ * queries: lookups by key or by author must go through {@code uk_blueprints_author_name}, and summaries must be
+ * answered from the statistics columns without touching {@code blueprint_points}. The tables are filled and
+ * analyzed first, since on nearly empty tables the planner rightly prefers sequential scans.
+ */
+class QueryPlanTest {
+
+    private static final String KEY_INDEX = "uk_blueprints_author_name";
+    private static final String POINTS = "blueprint_points";
+
+    @TempDir
+    static Path dir;
+
+    private static EmbeddedPostgres postgres;
+    private static ConfigurableApplicationContext api;
+    private static BlueprintPersistence persistence;
+
+    /**
+     * Records the SQL of every statement Hibernate prepares.
+     */
+    public static class RecordingInspector implements StatementInspector {
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    @BeforeAll
+    static void start() throws Exception {
+        IntegrationSupport.assumePostgresCanRun();
+        postgres = IntegrationSupport.startPostgres(dir.resolve("data"), 0);
+        api = IntegrationSupport.startApi(postgres,
+                "--spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                        + RecordingInspector.class.getName());
+        persistence = api.getBean(BlueprintPersistence.class);
+        // 20 000 blueprints by 2 000 authors, 10 points each
+        execute("INSERT INTO blueprints (author, name, point_count) "
+                + "SELECT 'author' || (i % 2000), 'bp' || i, 10 FROM generate_series(1, 20000) i");
+        execute("INSERT INTO blueprint_points (blueprint_id, point_order, x, y) "
+                + "SELECT b.id, o, o, o FROM blueprints b, generate_series(0, 9) o");
+        execute("ANALYZE blueprints");
+        execute("ANALYZE blueprint_points");
+    }
+
+    @AfterAll
+    static void stop() throws Exception {
+        if (api != null) api.close();
+        if (postgres != null) postgres.close();
+    }
+
+    @Test
+    void summaryByKeyUsesTheKeyIndexWithoutPoints() throws Exception {
+        String plan = plan(() -> persistence.getBlueprintSummary("author7", "bp7"));
+        assertTrue(plan.contains(KEY_INDEX), plan);
+        assertFalse(plan.contains(POINTS), plan);
+    }
+
+    @Test
+    void summariesByAuthorUseTheKeyIndexWithoutPoints() throws Exception {
+        String plan = plan(() -> persistence.getBlueprintSummariesByAuthor("author7"));
+        assertTrue(plan.contains(KEY_INDEX), plan);
+        assertFalse(plan.contains(POINTS), plan);
+    }
+
+    @Test
+    void allSummariesDoNotReadPoints() throws Exception {
+        String plan = plan(() -> persistence.getAllBlueprintSummaries());
+        assertFalse(plan.contains(POINTS), plan);
+    }
+
+    @Test
+    void blueprintByKeyUsesTheKeyIndexAndReadsPointsInOrder() throws Exception {
+        String plan = plan(() -> persistence.getBlueprint("author7", "bp7"));
+        assertTrue(plan.contains(KEY_INDEX), plan);
+        // Only the blueprint's own points, through the primary key (blueprint_id, point_order)
+        assertTrue(plan.contains("pk_blueprint_points"), plan);
+    }
+
+    private interface Call {
+        void run() throws Exception;
+    }
+
+    /**
+     * Runs a persistence call that issues exactly one statement and explains that statement's generic plan,
+     * the one used for any parameter values.
+     */
+    private static String plan(Call call) throws Exception {
+        RecordingInspector.statements.clear();
+        call.run();
+        List<String> statements = List.copyOf(RecordingInspector.statements);
+        assertEquals(1, statements.size(), statements.toString());
+        String sql = statements.get(0);
+        StringBuilder numbered = new StringBuilder();
+        int parameter = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') numbered.append('$').append(++parameter);
+            else numbered.append(c);
+        }
+        StringBuilder plan = new StringBuilder();
+        // Simple query mode sends the $n placeholders as text, for EXPLAIN to treat as parameters
+        try (Connection c = postgres.getPostgresDatabase(Map.of("preferQueryMode", "simple")).getConnection();
+             Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("EXPLAIN (GENERIC_PLAN) " + numbered)) {
+            while (rs.next()) plan.append(rs.getString(1)).append('\n');
+        }
+        return plan.toString();
+    }
+
+    private static void execute(String sql) throws SQLException {
+        try (Connection c = postgres.getPostgresDatabase().getConnection(); Statement st = c.createStatement()) {
+            st.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package co.edu.eci.blueprints.persistence.replica;
+
+import co.edu.eci.blueprints.IntegrationSupport;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static co.edu.eci.blueprints.IntegrationSupport.await;
+import static co.edu.eci.blueprints.IntegrationSupport.request;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Runs the API with the "replica" profile against a primary and a streaming standby of it. Pausing the standby's
+ * WAL replay makes it lag on purpose: reads without a token must then miss the latest write, which shows they are
+ * served by the standby, and reads carrying the write's {@value ReplicaConsistency#HEADER} token must fall back
+ * to the primary.
+ */
+class ReplicaRoutingTest {
+
+    private static final String SCOPE = "blueprints.read blueprints.write";
+
+    @TempDir
+    static Path dir;
+
+    private static EmbeddedPostgres primary;
+    private static EmbeddedPostgres standby;
+    private static ConfigurableApplicationContext api;
+
+    /**
+     * The standby's data directory is a copy of the primary's taken while the primary is stopped, so it starts
+     * from the same state and streams from there, without a base backup tool.
+     */
+    @BeforeAll
+    static void start() throws Exception {
+        IntegrationSupport.assumePostgresCanRun();
+        Path primaryDir = dir.resolve("primary");
+        Path standbyDir = dir.resolve("standby");
+        int primaryPort;
+        try (EmbeddedPostgres initial = IntegrationSupport.startPostgres(primaryDir, 0)) {
+            primaryPort = initial.getPort();
+        }
+        copy(primaryDir, standbyDir);
+        Files.setPosixFilePermissions(standbyDir, PosixFilePermissions.fromString("rwx------"));
+        Files.createFile(standbyDir.resolve("standby.signal"));
+        Files.writeString(standbyDir.resolve("postgresql.auto.conf"),
+                "primary_conninfo = 'host=localhost port=" + primaryPort + " user=postgres'\n",
+                StandardOpenOption.APPEND);
+        primary = IntegrationSupport.startPostgres(primaryDir, primaryPort);
+        standby = IntegrationSupport.startPostgres(standbyDir, 0);
+
+        api = IntegrationSupport.startApi(primary,
+                "--spring.profiles.active=replica",
+                "--blueprints.datasource.replica.url=" + IntegrationSupport.jdbcUrl(standby),
+                "--blueprints.datasource.replica.username=postgres",
+                "--blueprints.datasource.replica.password=");
+        awaitStandbyCaughtUp();
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        if (api != null) api.close();
+        if (standby != null) standby.close();
+        if (primary != null) primary.close();
+    }
+
+    @Test
+    void readsWithoutTokenAreServedByTheReplica() throws Exception {
+        pauseReplay();
+        try {
+            create("replica", "unseen");
+            assertEquals(404, get("replica", "unseen", null).statusCode());
+        } finally {
+            resumeReplay();
+        }
+        awaitStandbyCaughtUp();
+        assertEquals(200, get("replica", "unseen", null).statusCode());
+    }
+
+    @Test
+    void readsCarryingTheWriteTokenFallBackToThePrimary() throws Exception {
+        pauseReplay();
+        try {
+            String lsn = create("replica", "own-write");
+            assertNotNull(lsn, "Writes return the primary's WAL position");
+            Response read = get("replica", "own-write", lsn);
+            assertEquals(200, read.statusCode());
+            assertEquals(2, read.jsonPath().getList("data.points").size());
+            // The token only affects the request carrying it
+            assertEquals(404, get("replica", "own-write", null).statusCode());
+        } finally {
+            resumeReplay();
+        }
+    }
+
+    @Test
+    void tokensAlreadyReplayedAreServedByTheReplica() throws Exception {
+        String lsn = create("replica", "replayed");
+        awaitStandbyCaughtUp();
+        pauseReplay();
+        try {
+            create("replica", "after-token");
+            // The standby is behind the latest write but has replayed the token's position
+            assertEquals(200, get("replica", "replayed", lsn).statusCode());
+            assertEquals(404, get("replica", "after-token", lsn).statusCode());
+        } finally {
+            resumeReplay();
+        }
+    }
+
+    /**
+     * Creates a blueprint of two points through the API.
+     * @return The {@value ReplicaConsistency#HEADER} token of the write
+     */
+    private static String create(String author, String name) {
+        Response response = request(api, SCOPE)
+                .contentType(ContentType.JSON)
+                .body(Map.of("author", author, "name", name,
+                        "points", List.of(Map.of("x", 1, "y", 1), Map.of("x", 2, "y", 2))))
+                .post("/api/v1/blueprints");
+        assertEquals(201, response.statusCode());
+        return response.header(ReplicaConsistency.HEADER);
+    }
+
+    private static Response get(String author, String name, String lsn) {
+        var spec = request(api, SCOPE);
+        if (lsn != null) spec.header(ReplicaConsistency.HEADER, lsn);
+        return spec.get("/api/v1/blueprints/{author}/{name}", author, name);
+    }
+
+    private static void pauseReplay() throws SQLException {
+        execute(standby, "SELECT pg_wal_replay_pause()");
+    }
+
+    private static void resumeReplay() throws SQLException {
+        execute(standby, "SELECT pg_wal_replay_resume()");
+    }
+
+    private static void awaitStandbyCaughtUp() throws Exception {
+        String target = query(primary, "SELECT pg_current_wal_insert_lsn()");
+        await("the standby replays " + target, () -> {
+            try {
+                return "t".equals(query(standby, "SELECT pg_last_wal_replay_lsn() >= '" + target + "'::pg_lsn"));
+            } catch (SQLException e) {
+                return false;
+            }
+        });
+    }
+
+    private static void execute(EmbeddedPostgres server, String sql) throws SQLException {
+        try (Connection c = server.getPostgresDatabase().getConnection(); Statement st = c.createStatement()) {
+            st.execute(sql);
+        }
+    }
+
+    private static String query(EmbeddedPostgres server, String sql) throws SQLException {
+        try (Connection c = server.getPostgresDatabase().getConnection(); Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+    /**
+     * Copies a stopped server's data directory, leaving out the files that belong to the running process.
+     */
+    private static void copy(Path from, Path to) throws IOException {
+        try (Stream<Path> files = Files.walk(from)) {
+            files.forEach(source -> {
+                String name = source.getFileName().toString();
+                if (name.equals("postmaster.pid") || name.equals("epg-lock")) return;
+                try {
+                    Files.copy(source, to.resolve(from.relativize(source).toString()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package co.edu.eci.blueprints.throttling;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static co.edu.eci.blueprints.throttling.AdaptiveLimit.WINDOW_NANOS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * How the adaptive limit follows synthetic latency samples, fed window by window on an explicit clock.
+ */
+class AdaptiveLimitTest {
+
+    private static final long MS = 1_000_000L;
+
+    private AdaptiveLimit limit;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        limit = new AdaptiveLimit(100, 10, 400, 2.0);
+        // The first sample closes the window opened by the constructor and sets the long-term latency
+        now = System.nanoTime() + 1_000 * MS;
+        assertTrue(limit.tryAcquire(1.0));
+        limit.release(10 * MS, now);
+        assertEquals(100, limit.limit());
+    }
+
+    @Test
+    void limitShrinksOnlyWhenLatencyExceedsTheTolerance() {
+        for (int i = 0; i < 10; i++) busyWindow(10 * MS);
+        int healthy = limit.limit();
+        assertTrue(healthy > 100, "a healthy backend used up to its limit lets the limit grow: " + healthy);
+
+        // 1.5 times the long-term latency is within the tolerance of 2
+        for (int i = 0; i < 10; i++) busyWindow(15 * MS);
+        int tolerated = limit.limit();
+        assertTrue(tolerated >= healthy, tolerated + " < " + healthy);
+
+        // 5 times the long-term latency: the limit falls on every window
+        int previous = tolerated;
+        for (int i = 0; i < 10; i++) {
+            busyWindow(50 * MS);
+            assertTrue(limit.limit() < previous, "window " + i + ": " + limit.limit() + " >= " + previous);
+            previous = limit.limit();
+        }
+        assertTrue(previous < tolerated * 0.6, previous + " is not much below " + tolerated);
+
+        // A backend that keeps getting slower drives the limit down to the minimum, and no further
+        for (int i = 0; i < 40; i++) busyWindow(10_000 * MS);
+        assertEquals(10, limit.limit());
+    }
+
+    @Test
+    void limitRecoversOnceLatencyIsBackToNormal() {
+        for (int i = 0; i < 10; i++) busyWindow(10 * MS);
+        int healthy = limit.limit();
+        for (int i = 0; i < 10; i++) busyWindow(50 * MS);
+        int shrunk = limit.limit();
+        assertTrue(shrunk < healthy);
+
+        int windows = 0;
+        while (limit.limit() < healthy) {
+            int before = limit.limit();
+            busyWindow(10 * MS);
+            assertTrue(limit.limit() >= before, "the limit only grows while the backend is healthy");
+            assertTrue(++windows <= 40, "not back to " + healthy + " after 40 windows: " + limit.limit());
+        }
+    }
+
+    @Test
+    void limitDoesNotGrowWhileFarFromIt() {
+        for (int i = 0; i < 20; i++) window(10 * MS, 10);
+        assertEquals(100, limit.limit());
+    }
+
+    @Test
+    void samplesLeftOutDoNotMoveTheLimit() {
+        for (int i = 0; i < 10; i++) busyWindow(10 * MS);
+        int healthy = limit.limit();
+        // Requests released with a negative latency, such as scans, are not samples however long they take
+        for (int i = 0; i < 10; i++) {
+            now += WINDOW_NANOS;
+            for (int r = 0; r < healthy; r++) assertTrue(limit.tryAcquire(1.0));
+            for (int r = 0; r < healthy; r++) limit.release(-1, now);
+        }
+        assertEquals(healthy, limit.limit());
+        assertEquals(0, limit.inFlight());
+    }
+
+    /**
+     * A window in which the requests in flight reach the limit.
+     */
+    private void busyWindow(long latencyNanos) {
+        window(latencyNanos, limit.limit());
+    }
+
+    /**
+     * A window of requests admitted together, released in the middle of the window but for the last one,
+     * which ends it.
+     */
+    private void window(long latencyNanos, int requests) {
+        for (int r = 0; r < requests; r++) assertTrue(limit.tryAcquire(1.0), "request " + r + " of " + requests);
+        for (int r = 0; r < requests - 1; r++) limit.release(latencyNanos, now + WINDOW_NANOS / 2);
+        now += WINDOW_NANOS;
+        limit.release(latencyNanos, now);
+        assertEquals(0, limit.inFlight());
+    }
+}
@@ -0,0 +1,91 @@
+package co.edu.eci.blueprints.throttling;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Priorities of the concurrency limit: listings of every blueprint are shed before single-blueprint requests.
+ */
+class ConcurrencyLimitInterceptorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AdaptiveLimit limit = new AdaptiveLimit(10, 1, 100, 2.0);
+    private final ConcurrencyLimitInterceptor interceptor =
+            new ConcurrencyLimitInterceptor(limit, 0.5, new ObjectMapper(), registry);
+
+    @Test
+    void listingsAreShedBeforeSingleReads() throws Exception {
+        List<MockHttpServletRequest> admitted = new ArrayList<>();
+        for (int i = 0; i < 5; i++) admitted.add(admit(listing()));
+
+        // Listings may only use half of the limit
+        MockHttpServletResponse shed = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(listing(), shed, null));
+        assertEquals(503, shed.getStatus());
+        assertEquals("1", shed.getHeader("Retry-After"));
+
+        // The other half is still there for single reads
+        for (int i = 0; i < 5; i++) admitted.add(admit(singleRead()));
+        assertEquals(10, limit.inFlight());
+        shed = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(singleRead(), shed, null));
+        assertEquals(503, shed.getStatus());
+
+        assertEquals(1, registry.counter("blueprints.concurrency.shed", "priority", "scan").count());
+        assertEquals(1, registry.counter("blueprints.concurrency.shed", "priority", "single").count());
+
+        // With the single reads holding the rest of the limit, a listing that ends makes room for a single read,
+        // not for another listing
+        interceptor.afterCompletion(admitted.remove(0), new MockHttpServletResponse(), null, null);
+        assertEquals(9, limit.inFlight());
+        assertFalse(interceptor.preHandle(listing(), new MockHttpServletResponse(), null));
+        admitted.add(admit(singleRead()));
+        assertEquals(10, limit.inFlight());
+    }
+
+    @Test
+    void singleReadsAreNotLimitedByTheListingShare() throws Exception {
+        for (int i = 0; i < 10; i++) admit(singleRead());
+        MockHttpServletResponse shed = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(listing(), shed, null));
+        assertEquals(503, shed.getStatus());
+    }
+
+    @Test
+    void writesToTheListingPathAreSingleRequests() throws Exception {
+        for (int i = 0; i < 5; i++) admit(listing());
+        MockHttpServletRequest create = new MockHttpServletRequest("POST", "/api/v1/blueprints");
+        create.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/blueprints");
+        admit(create);
+        assertEquals(6, limit.inFlight());
+    }
+
+    private MockHttpServletRequest admit(MockHttpServletRequest request) throws Exception {
+        assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), null),
+                request.getMethod() + " " + request.getRequestURI());
+        return request;
+    }
+
+    private static MockHttpServletRequest listing() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/blueprints");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/blueprints");
+        return request;
+    }
+
+    private static MockHttpServletRequest singleRead() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/blueprints/ana/house");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/blueprints/{author}/{bpname}");
+        return request;
+    }
+}
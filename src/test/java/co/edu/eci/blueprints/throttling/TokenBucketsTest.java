@@ -0,0 +1,112 @@
+package co.edu.eci.blueprints.throttling;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Admission decisions of the token buckets on a clock passed explicitly, so every wait is exact.
+ */
+class TokenBucketsTest {
+
+    private static final long MS = 1_000_000L;
+    private static final long SECOND = 1_000 * MS;
+
+    /** Buckets are created before t0, as the constructor reads the clock for the overflow bucket. */
+    private final long t0 = System.nanoTime() + SECOND;
+
+    @Test
+    void aFullBucketAdmitsTheBurstAtOnce() {
+        TokenBuckets buckets = new TokenBuckets(10, 3, 100);
+        for (int i = 0; i < 3; i++) assertEquals(0, buckets.tryAcquire("ana", t0), "request " + i);
+        assertEquals(100 * MS, buckets.tryAcquire("ana", t0));
+        // A rejected request takes no token: the wait does not grow
+        assertEquals(100 * MS, buckets.tryAcquire("ana", t0));
+        // Other keys have buckets of their own
+        assertEquals(0, buckets.tryAcquire("luis", t0));
+    }
+
+    @Test
+    void anEmptyBucketRefillsAtTheSteadyRate() {
+        TokenBuckets buckets = new TokenBuckets(10, 3, 100);
+        for (int i = 0; i < 3; i++) buckets.tryAcquire("ana", t0);
+
+        // One request every 100 ms is admitted indefinitely, and nothing more
+        for (int i = 1; i <= 20; i++) {
+            long now = t0 + i * 100 * MS;
+            assertEquals(0, buckets.tryAcquire("ana", now), "request at " + i * 100 + " ms");
+            assertEquals(100 * MS, buckets.tryAcquire("ana", now));
+        }
+        // Half an interval later, half an interval is left
+        assertEquals(50 * MS, buckets.tryAcquire("ana", t0 + 2_050 * MS));
+    }
+
+    @Test
+    void idleTimeRefillsNoMoreThanTheBurst() {
+        TokenBuckets buckets = new TokenBuckets(10, 3, 100);
+        for (int i = 0; i < 3; i++) buckets.tryAcquire("ana", t0);
+
+        long later = t0 + 60 * SECOND;
+        for (int i = 0; i < 3; i++) assertEquals(0, buckets.tryAcquire("ana", later), "request " + i);
+        assertEquals(100 * MS, buckets.tryAcquire("ana", later));
+    }
+
+    @Test
+    void theWaitBecomesARetryAfterInWholeSeconds() {
+        // One token every 4 s, two at once
+        TokenBuckets buckets = new TokenBuckets(0.25, 2, 100);
+        buckets.tryAcquire("ana", t0);
+        buckets.tryAcquire("ana", t0);
+
+        long wait = buckets.tryAcquire("ana", t0);
+        assertEquals(4 * SECOND, wait);
+        assertEquals(4, RateLimitInterceptor.retryAfterSeconds(wait));
+
+        wait = buckets.tryAcquire("ana", t0 + 1_500 * MS);
+        assertEquals(2_500 * MS, wait);
+        assertEquals(3, RateLimitInterceptor.retryAfterSeconds(wait), "rounded up");
+
+        wait = buckets.tryAcquire("ana", t0 + 3_999 * MS);
+        assertEquals(MS, wait);
+        assertEquals(1, RateLimitInterceptor.retryAfterSeconds(wait), "never less than a second");
+
+        assertEquals(0, buckets.tryAcquire("ana", t0 + 4 * SECOND));
+    }
+
+    @Test
+    void newKeysShareTheOverflowBucketWhileEveryTrackedKeyIsActive() {
+        TokenBuckets buckets = new TokenBuckets(10, 1, 2);
+        assertEquals(0, buckets.tryAcquire("ana", t0));
+        assertEquals(0, buckets.tryAcquire("luis", t0));
+
+        // Both tracked keys are still refilling, so none can be evicted
+        assertEquals(0, buckets.tryAcquire("eva", t0));
+        assertEquals(100 * MS, buckets.tryAcquire("juan", t0), "juan shares the bucket eva emptied");
+        assertEquals(2, buckets.size());
+
+        // The tracked keys keep their own buckets
+        assertEquals(100 * MS, buckets.tryAcquire("ana", t0));
+    }
+
+    @Test
+    void idleKeysAreEvictedWhenTheMapIsFull() {
+        TokenBuckets buckets = new TokenBuckets(10, 1, 2);
+        buckets.tryAcquire("ana", t0);
+        buckets.tryAcquire("luis", t0);
+        // The first scan finds nothing idle
+        buckets.tryAcquire("eva", t0);
+        assertEquals(2, buckets.size());
+
+        // ana and luis are idle after 100 ms, but the map is scanned at most once a second
+        buckets.tryAcquire("juan", t0 + 500 * MS);
+        assertEquals(2, buckets.size());
+
+        // A second after the previous scan, the idle keys are removed and the new key is tracked
+        assertEquals(0, buckets.tryAcquire("pedro", t0 + SECOND));
+        assertEquals(1, buckets.size());
+        assertEquals(100 * MS, buckets.tryAcquire("pedro", t0 + SECOND), "pedro has a bucket of its own");
+        // An evicted key comes back with a full bucket, as if it were new
+        assertEquals(0, buckets.tryAcquire("ana", t0 + SECOND));
+        assertEquals(2, buckets.size());
+    }
+}